@@ -0,0 +1,32 @@
+
+// src/edu/ccrm/check/Checks.java
+package edu.ccrm.check;
+
+/**
+ * Shared plumbing for the consistency checks in this package. Each check is a main class
+ * that states its invariants with assert, so it must run with -ea:
+ * <pre>
+ * java -ea edu.ccrm.check.StudentTotalsCheck [SEED]
+ * java -ea edu.ccrm.check.EnrollmentContentionCheck [THREADS]
+ * java -ea edu.ccrm.check.ContendedCourseBenchmark [THREADS] [MILLIS]
+ * java -ea edu.ccrm.check.ColumnarScanBenchmark [STUDENTS] [ROUNDS]
+ * </pre>
+ */
+final class Checks {
+    private Checks() {
+    }
+
+    // Exits with status 2 when assertions are off, since the check would prove nothing
+    static void requireAssertions(String check) {
+        boolean enabled = false;
+        assert enabled = true;
+        if (!enabled) {
+            System.err.println(check + " states its invariants with assert; run it with java -ea");
+            System.exit(2);
+        }
+    }
+
+    static long parseLong(String[] args, int index, long fallback) {
+        return args.length > index ? Long.parseLong(args[index]) : fallback;
+    }
+}
@@ -0,0 +1,135 @@
+
+// src/edu/ccrm/check/ColumnarScanBenchmark.java
+package edu.ccrm.check;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.report.AnalyticsReport;
+import edu.ccrm.report.ColumnarStore;
+import edu.ccrm.report.GpaBand;
+import edu.ccrm.report.GroupStats;
+import edu.ccrm.report.StudentAnalytics;
+import edu.ccrm.util.CourseCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Time per analytics scan over the same students, through the object graph (StudentAnalytics
+ * on a one-thread pool, so both sides run on one core) and through ColumnarStore. Each side
+ * is warmed up first; the figure reported is the median of ROUNDS timed scans. The two
+ * reports must agree on every count before any timing is printed.
+ * <pre>
+ * java -ea edu.ccrm.check.ColumnarScanBenchmark [STUDENTS] [ROUNDS]
+ * </pre>
+ */
+public final class ColumnarScanBenchmark {
+    private static final int COURSES = 400;
+    private static final int ENROLLMENTS_PER_STUDENT = 6;
+    private static final int WARMUP_ROUNDS = 10;
+
+    private ColumnarScanBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Checks.requireAssertions("ColumnarScanBenchmark");
+        int studentCount = (int) Checks.parseLong(args, 0, 200_000);
+        int rounds = (int) Checks.parseLong(args, 1, 20);
+
+        Random random = new Random(42);
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < COURSES; i++) {
+            courses.add(new Course.Builder()
+                    .setCode(CourseCode.of(String.format("COL-%03d", i)))
+                    .setTitle("Columnar " + i)
+                    .setCredits(1 + i % 5)
+                    .setSemester(Semester.values()[i % Semester.values().length])
+                    .setDepartment(i % 9 == 8 ? null : "Department " + i % 9)
+                    .build());
+        }
+        Grade[] grades = Grade.values();
+        List<Student> students = new ArrayList<>(studentCount);
+        for (int i = 0; i < studentCount; i++) {
+            Student student = new Student("B" + i, "COL" + i, "Scan Student " + i, "scan" + i + "@example.com");
+            for (int e = 0; e < ENROLLMENTS_PER_STUDENT; e++) {
+                // Every fourth enrollment is ungraded
+                Grade grade = random.nextInt(4) == 0 ? null : grades[random.nextInt(grades.length)];
+                Enrollment enrollment = new Enrollment(student, courses.get(random.nextInt(COURSES)));
+                enrollment.setGrade(grade);
+                student.addEnrollment(enrollment);
+            }
+            student.setActive(i % 20 != 0);
+            students.add(student);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        StudentAnalytics analytics = new StudentAnalytics(pool);
+        ColumnarStore store = new ColumnarStore();
+        store.rebuild(students);
+
+        AnalyticsReport expected = analytics.analyze(students);
+        AnalyticsReport actual = store.analyze(StudentAnalytics.DEFAULT_TOP_K);
+        verify(expected, actual);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            analytics.analyze(students);
+            store.analyze(StudentAnalytics.DEFAULT_TOP_K);
+        }
+        long[] graph = new long[rounds];
+        long[] columnar = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            analytics.analyze(students);
+            graph[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            store.analyze(StudentAnalytics.DEFAULT_TOP_K);
+            columnar[i] = System.nanoTime() - start;
+        }
+
+        double graphMillis = median(graph) / 1e6;
+        double columnarMillis = median(columnar) / 1e6;
+        System.out.printf("%d students, %d enrollments, median of %d scans%n",
+                studentCount, store.getEnrollmentCount(), rounds);
+        System.out.printf("object graph: %8.2f ms%n", graphMillis);
+        System.out.printf("columnar    : %8.2f ms (%.1fx)%n", columnarMillis, graphMillis / columnarMillis);
+        pool.shutdown();
+    }
+
+    private static void verify(AnalyticsReport expected, AnalyticsReport actual) {
+        assert expected.getStudentCount() == actual.getStudentCount()
+                : "Student counts differ: " + expected.getStudentCount() + " vs " + actual.getStudentCount();
+        for (GpaBand band : GpaBand.values()) {
+            assert expected.getCount(band) == actual.getCount(band)
+                    : band + " counts differ: " + expected.getCount(band) + " vs " + actual.getCount(band);
+        }
+        assert expected.getCreditLoad().equals(actual.getCreditLoad()) : "Credit loads differ";
+        assert expected.getDepartmentStats().keySet().equals(actual.getDepartmentStats().keySet())
+                : "Departments differ";
+        for (Map.Entry<String, GroupStats> entry : expected.getDepartmentStats().entrySet()) {
+            verify(entry.getKey(), entry.getValue(), actual.getDepartmentStats().get(entry.getKey()));
+        }
+        for (Semester semester : Semester.values()) {
+            verify(semester.name(), expected.getSemesterStats().get(semester), actual.getSemesterStats().get(semester));
+        }
+    }
+
+    private static void verify(String group, GroupStats expected, GroupStats actual) {
+        assert expected.getEnrollments() == actual.getEnrollments()
+                && expected.getGradedEnrollments() == actual.getGradedEnrollments()
+                && expected.getGradedCredits() == actual.getGradedCredits()
+                : group + " differs: " + expected + " vs " + actual;
+    }
+
+    private static long median(long[] samples) {
+        long[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+}
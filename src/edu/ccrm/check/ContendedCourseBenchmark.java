@@ -0,0 +1,150 @@
+
+// src/edu/ccrm/check/ContendedCourseBenchmark.java
+package edu.ccrm.check;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.CourseCode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enrollment throughput against a single capped course, at 1, 2, 4 ... up to THREADS threads.
+ *
+ * Each thread owns its own students, so the student locks never contend and every thread
+ * meets the others only at the course's seat counter. Threads flip their students between
+ * enrolled and unenrolled for MILLIS per round. An observer asserts the course is never
+ * over capacity, and after each round the seats taken must equal the students enrolled.
+ * <pre>
+ * java -ea edu.ccrm.check.ContendedCourseBenchmark [THREADS] [MILLIS]
+ * </pre>
+ */
+public final class ContendedCourseBenchmark {
+    private static final int CAPACITY = 64;
+    private static final int STUDENTS_PER_THREAD = 32;
+
+    private ContendedCourseBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Checks.requireAssertions("ContendedCourseBenchmark");
+        int maxThreads = (int) Checks.parseLong(args, 0, 16);
+        long millis = Checks.parseLong(args, 1, 2_000);
+
+        System.out.printf("%8s %14s %12s %10s%n", "threads", "ops/s", "enrolled", "full");
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            round(threads, millis);
+            if (threads < maxThreads && threads * 2 > maxThreads) {
+                round(maxThreads, millis);
+            }
+        }
+        System.out.println("ContendedCourseBenchmark passed");
+    }
+
+    private static void round(int threads, long millis) throws InterruptedException {
+        Course course = new Course.Builder()
+                .setCode(CourseCode.of("HOT-101"))
+                .setTitle("Contended course")
+                .setCredits(3)
+                .setSemester(Semester.FALL)
+                .setDepartment("Checks")
+                .setCapacity(CAPACITY)
+                .build();
+        StudentService service = new StudentService();
+        List<List<Student>> owned = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Student> students = new ArrayList<>();
+            for (int i = 0; i < STUDENTS_PER_THREAD; i++) {
+                String id = t + "-" + i;
+                Student student = new Student("H" + id, "HOT" + id, "Hot Student " + id, "hot" + id + "@example.com");
+                service.addStudent(student);
+                students.add(student);
+            }
+            owned.add(students);
+        }
+
+        LongAdder operations = new LongAdder();
+        LongAdder enrolled = new LongAdder();
+        LongAdder full = new LongAdder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<Student> students = owned.get(t);
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                    long done = 0;
+                    for (int i = 0; running.get(); i = (i + 1) % students.size()) {
+                        Student student = students.get(i);
+                        if (!student.getEnrollments().isEmpty()) {
+                            service.unenrollStudentFromCourse(student, course);
+                        } else {
+                            try {
+                                service.enrollStudentInCourse(student, course);
+                                enrolled.increment();
+                            } catch (CourseFullException e) {
+                                full.increment();
+                            }
+                        }
+                        done++;
+                    }
+                    operations.add(done);
+                } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                    failure.compareAndSet(null, new AssertionError("Unexpected rejection", e));
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "hot-" + t));
+        }
+        Thread observer = new Thread(() -> {
+            try {
+                start.await();
+                while (running.get()) {
+                    int taken = course.getSeatsTaken();
+                    assert taken >= 0 && taken <= CAPACITY : "Seats taken " + taken + " of " + CAPACITY;
+                    Thread.yield();
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }, "observer");
+
+        workers.forEach(Thread::start);
+        observer.start();
+        long began = System.nanoTime();
+        start.countDown();
+        Thread.sleep(millis);
+        running.set(false);
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - began;
+        observer.join();
+        if (failure.get() != null) {
+            throw new AssertionError("Contended course benchmark failed", failure.get());
+        }
+
+        int holding = 0;
+        for (List<Student> students : owned) {
+            for (Student student : students) {
+                holding += student.getEnrollments().size();
+            }
+        }
+        assert course.getSeatsTaken() == holding
+                : "Seats taken " + course.getSeatsTaken() + ", students enrolled " + holding;
+        System.out.printf("%8d %14.0f %12d %10d%n", threads,
+                operations.sum() * 1e9 / elapsed, enrolled.sum(), full.sum());
+    }
+}
@@ -0,0 +1,173 @@
+
+// src/edu/ccrm/check/EnrollmentContentionCheck.java
+package edu.ccrm.check;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.CourseCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Stress check for the per-student enrollment lock: many threads enroll and unenroll the
+ * same few students at once, through both enrollStudentInCourse and enrollBatch, while an
+ * observer keeps inspecting them.
+ *
+ * Every observation, taken under the student's monitor as StudentService's own checks are,
+ * asserts that no semester is over the credit limit, that no course offering is held twice,
+ * and that the running credit totals match the enrollment list. With the limit checked
+ * outside the lock, two threads could both pass it and together exceed it.
+ */
+public final class EnrollmentContentionCheck {
+    private static final int STUDENTS = 8;
+    private static final int OPERATIONS_PER_THREAD = 20_000;
+    private static final List<Semester> SEMESTERS = new ArrayList<>(Arrays.asList(Semester.values()));
+
+    static {
+        SEMESTERS.add(null);
+    }
+
+    private EnrollmentContentionCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Checks.requireAssertions("EnrollmentContentionCheck");
+        int threads = (int) Checks.parseLong(args, 0, Math.max(8, 4 * Runtime.getRuntime().availableProcessors()));
+
+        // Few semesters and heavy courses, so most attempts land right at the limit
+        CourseService courseService = new CourseService();
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            Semester semester = i % 3 == 2 ? null : Semester.values()[i % 2];
+            Course course = new Course.Builder()
+                    .setCode(CourseCode.of(String.format("LCK-%03d", 100 + i)))
+                    .setTitle("Contention " + i)
+                    .setCredits(3 + i % 3)
+                    .setSemester(semester)
+                    .setDepartment("Checks")
+                    .build();
+            courseService.addCourse(course);
+            courses.add(course);
+        }
+
+        StudentService service = new StudentService();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("L" + i, "LCK" + i, "Contention Student " + i, "lock" + i + "@example.com");
+            service.addStudent(student);
+            students.add(student);
+        }
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger observations = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            boolean batch = t % 4 == 3;
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int op = 0; op < OPERATIONS_PER_THREAD && failure.get() == null; op++) {
+                        Student student = students.get(random.nextInt(STUDENTS));
+                        Course course = courses.get(random.nextInt(courses.size()));
+                        if (random.nextInt(4) == 0) {
+                            service.unenrollStudentFromCourse(student, course);
+                        } else if (batch) {
+                            EnrollmentRequest request = new EnrollmentRequest(student.getRegNo(),
+                                    course.getCode().toString(), course.getSemester());
+                            boolean success = service.enrollBatch(Stream.of(request), courseService, 1)
+                                    .getResults().get(0).isSuccess();
+                            (success ? enrolled : rejected).incrementAndGet();
+                        } else {
+                            try {
+                                service.enrollStudentInCourse(student, course);
+                                enrolled.incrementAndGet();
+                            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException
+                                     | CourseFullException e) {
+                                rejected.incrementAndGet();
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }, "enroll-" + t));
+        }
+
+        Thread observer = new Thread(() -> {
+            try {
+                start.await();
+                while (workers.stream().anyMatch(Thread::isAlive) && failure.get() == null) {
+                    for (Student student : students) {
+                        verify(student);
+                        observations.incrementAndGet();
+                    }
+                    Thread.yield();
+                }
+            } catch (Throwable e) {
+                failure.compareAndSet(null, e);
+            }
+        }, "observer");
+
+        workers.forEach(Thread::start);
+        observer.start();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        observer.join();
+        if (failure.get() != null) {
+            throw new AssertionError("Contention check failed", failure.get());
+        }
+        for (Student student : students) {
+            verify(student);
+        }
+
+        System.out.printf("EnrollmentContentionCheck passed: %d threads, %d enrollments, %d rejected, "
+                + "%d observations%n", threads, enrolled.get(), rejected.get(), observations.get());
+    }
+
+    private static void verify(Student student) {
+        synchronized (student) {
+            Set<String> offerings = new HashSet<>();
+            for (Enrollment enrollment : student.getEnrollments()) {
+                Course course = enrollment.getCourse();
+                boolean first = offerings.add(course.getCode() + "/" + course.getSemester());
+                assert first : student.getRegNo() + " holds " + course.getCode() + " twice";
+            }
+            for (Semester semester : SEMESTERS) {
+                int credits = 0;
+                for (Enrollment enrollment : student.getEnrollments()) {
+                    if (enrollment.getCourse().getSemester() == semester) {
+                        credits += enrollment.getCourse().getCredits();
+                    }
+                }
+                assert credits <= StudentService.MAX_CREDITS_PER_SEMESTER
+                        : student.getRegNo() + " has " + credits + " credits in " + semester;
+                assert student.getCredits(semester) == credits
+                        : semester + " credits of " + student.getRegNo() + " are " + student.getCredits(semester)
+                          + ", recomputed " + credits;
+            }
+        }
+    }
+}
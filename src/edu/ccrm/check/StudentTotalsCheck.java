@@ -0,0 +1,151 @@
+
+// src/edu/ccrm/check/StudentTotalsCheck.java
+package edu.ccrm.check;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.CourseFullException;
+import edu.ccrm.exception.DuplicateEnrollmentException;
+import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.CourseCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Checks that Student's running GPA and credit totals always equal a full recomputation.
+ *
+ * Random sequences of enroll, grade, regrade, ungrade and unenroll run through
+ * StudentService, plus grade changes on enrollments that were already removed, which must
+ * not reach the totals. After every step calculateGPA() is compared bit for bit with the
+ * loop it replaced, and getCredits() with a sum over the enrollment list.
+ */
+public final class StudentTotalsCheck {
+    private static final int STUDENTS = 50;
+    private static final int STEPS = 200_000;
+    private static final List<Semester> SEMESTERS = new ArrayList<>(Arrays.asList(Semester.values()));
+
+    static {
+        SEMESTERS.add(null);
+    }
+
+    private StudentTotalsCheck() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Checks.requireAssertions("StudentTotalsCheck");
+        long seed = Checks.parseLong(args, 0, 42);
+        Random random = new Random(seed);
+
+        List<Course> courses = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            // Every fifth course has no semester, which is tracked apart from the others
+            Semester semester = i % 5 == 4 ? null : Semester.values()[i % Semester.values().length];
+            courses.add(new Course.Builder()
+                    .setCode(CourseCode.of(String.format("CHK-%03d", 100 + i)))
+                    .setTitle("Check " + i)
+                    .setCredits(1 + i % 5)
+                    .setSemester(semester)
+                    .setDepartment("Checks")
+                    .build());
+        }
+
+        StudentService service = new StudentService();
+        List<Student> students = new ArrayList<>();
+        for (int i = 0; i < STUDENTS; i++) {
+            Student student = new Student("C" + i, "CHK" + i, "Check Student " + i, "check" + i + "@example.com");
+            service.addStudent(student);
+            students.add(student);
+        }
+
+        List<Enrollment> removed = new ArrayList<>();
+        int[] done = new int[5];
+        for (int step = 0; step < STEPS; step++) {
+            Student student = students.get(random.nextInt(STUDENTS));
+            List<Enrollment> current = student.getEnrollments();
+            int action = random.nextInt(10);
+            if (action < 4 || current.isEmpty()) {
+                try {
+                    service.enrollStudentInCourse(student, courses.get(random.nextInt(courses.size())));
+                    done[0]++;
+                } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException | CourseFullException e) {
+                    // Rejected attempts must leave the totals alone, which the check below covers
+                }
+            } else if (action < 8) {
+                Enrollment enrollment = current.get(random.nextInt(current.size()));
+                // One in eight clears the grade again
+                Grade grade = random.nextInt(8) == 0 ? null : Grade.values()[random.nextInt(Grade.values().length)];
+                done[enrollment.getGrade() == null ? 1 : 2]++;
+                service.assignGrade(enrollment, grade);
+            } else if (action < 9 || removed.isEmpty()) {
+                Enrollment enrollment = current.get(random.nextInt(current.size()));
+                service.unenrollStudentFromCourse(student, enrollment.getCourse());
+                removed.add(enrollment);
+                done[3]++;
+            } else {
+                removed.get(random.nextInt(removed.size())).setGrade(Grade.values()[random.nextInt(Grade.values().length)]);
+                done[4]++;
+            }
+            verify(student, courses, seed, step);
+        }
+        for (Student student : students) {
+            verify(student, courses, seed, STEPS);
+        }
+
+        System.out.printf("StudentTotalsCheck passed (seed %d): %d enrolls, %d grades, %d regrades, "
+                + "%d unenrolls, %d grades on removed enrollments%n", seed, done[0], done[1], done[2], done[3], done[4]);
+    }
+
+    private static void verify(Student student, List<Course> courses, long seed, int step) {
+        double expected = recomputeGPA(student.getEnrollments());
+        double actual = student.calculateGPA();
+        assert Double.compare(actual, expected) == 0
+                : "GPA of " + student.getRegNo() + " is " + actual + ", recomputed " + expected
+                  + " (seed " + seed + ", step " + step + ")";
+
+        for (Semester semester : SEMESTERS) {
+            int credits = 0;
+            for (Enrollment enrollment : student.getEnrollments()) {
+                if (enrollment.getCourse().getSemester() == semester) {
+                    credits += enrollment.getCourse().getCredits();
+                }
+            }
+            assert student.getCredits(semester) == credits
+                    : semester + " credits of " + student.getRegNo() + " are " + student.getCredits(semester)
+                      + ", recomputed " + credits + " (seed " + seed + ", step " + step + ")";
+        }
+
+        for (Course course : courses) {
+            boolean enrolled = false;
+            for (Enrollment enrollment : student.getEnrollments()) {
+                enrolled |= enrollment.getCourse() == course;
+            }
+            assert student.isEnrolledIn(course) == enrolled
+                    : student.getRegNo() + " enrolled in " + course.getCode() + " reports " + !enrolled
+                      + " (seed " + seed + ", step " + step + ")";
+        }
+    }
+
+    // The per-call loop calculateGPA() used before the totals were kept incrementally
+    private static double recomputeGPA(List<Enrollment> enrollments) {
+        if (enrollments.isEmpty()) return 0.0;
+
+        double totalPoints = 0.0;
+        int totalCredits = 0;
+
+        for (Enrollment enrollment : enrollments) {
+            if (enrollment.getGrade() != null) {
+                totalPoints += enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits();
+                totalCredits += enrollment.getCourse().getCredits();
+            }
+        }
+
+        return totalCredits > 0 ? totalPoints / totalCredits : 0.0;
+    }
+}
@@ -5,24 +5,46 @@ package edu.ccrm.cli;
 import edu.ccrm.domain.*;
 import edu.ccrm.service.StudentService;
 import edu.ccrm.service.CourseService;
+import edu.ccrm.service.BatchEnrollmentResult;
+import edu.ccrm.service.EnrollmentIndex;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.io.BackupResult;
 import edu.ccrm.io.FileService;
+import edu.ccrm.io.Dataset;
+import edu.ccrm.io.EnrollmentJournal;
+import edu.ccrm.io.MappedDataset;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.report.AnalyticsReport;
+import edu.ccrm.report.ColumnarStore;
+import edu.ccrm.report.GpaLeaderboard;
+import edu.ccrm.report.StudentAnalytics;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
 import edu.ccrm.exception.FileImportException;
 import edu.ccrm.util.CourseCode;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.List;
 import java.util.Scanner;
-import java.util.stream.Collectors;
 
 public class CLIMenu {
     private final Scanner scanner;
     private final StudentService studentService;
     private final CourseService courseService;
     private final FileService fileService;
+    private final StudentAnalytics analytics = new StudentAnalytics();
+    private final GpaLeaderboard leaderboard = new GpaLeaderboard();
+    private final ColumnarStore columns = new ColumnarStore();
+    private final EnrollmentIndex enrollmentIndex = new EnrollmentIndex();
+    private EnrollmentJournal journal;
+    private static final int TOP_STUDENTS = 5;
     private List<Instructor> instructors;
     
     public CLIMenu() {
@@ -30,12 +52,62 @@ public class CLIMenu {
         this.studentService = new StudentService();
         this.courseService = new CourseService();
         this.fileService = new FileService();
+        Metrics.registerMBean();
         initializeSampleData();
+        openLeaderboard();
+        openJournal();
     }
     
-    private void initializeSampleData() {
-        // Create some sample instructors
-        instructors = List.of(
+    // Registered before the journal replays so restored grades reach the rankings
+    private void openLeaderboard() {
+        leaderboard.rebuild(studentService.getStudentSnapshot());
+        columns.rebuild(studentService.getStudentSnapshot());
+        enrollmentIndex.rebuild(studentService.getStudentSnapshot());
+        studentService.addEnrollmentListener(leaderboard);
+        studentService.addEnrollmentListener(columns);
+        studentService.addEnrollmentListener(enrollmentIndex);
+    }
+    
+    private void openJournal() {
+        try {
+            journal = fileService.openEnrollmentJournal(studentService::getStudentSnapshot);
+            replayJournal();
+            studentService.setEnrollmentLog(journal);
+            studentService.addEnrollmentListener(journal);
+        } catch (IOException e) {
+            System.err.println("Error opening enrollment journal: " + e.getMessage());
+        }
+    }
+    
+    // Replay is idempotent, so it is safe to run again after students or courses are imported
+    private void replayJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            int restored = journal.replay(studentService, courseService);
+            if (restored > 0) {
+                System.out.println("Restored " + restored + " enrollment records from the journal.");
+            }
+        } catch (IOException e) {
+            System.err.println("Error replaying enrollment journal: " + e.getMessage());
+        }
+    }
+    
+    private void closeJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing enrollment journal: " + e.getMessage());
+        }
+    }
+    
+    // The instructor roster that course CSV files refer to by id; also used by HeadlessRunner
+    static List<Instructor> defaultInstructors() {
+        return List.of(
             new Instructor("I001", "Dr. Smith", "smith@university.edu", "Computer Science"),
             new Instructor("I002", "Prof. Johnson", "johnson@university.edu", "Mathematics"),
             new Instructor("I003", "Dr. Saurav prasad", "saurav.p@university.edu", "Chemistry"),
@@ -44,11 +116,16 @@ public class CLIMenu {
             new Instructor("I006", "Dr. Vinod Bhatt", "Vinod.bhatt@university.edu", "professional English")
             
         );
+    }
+    
+    private void initializeSampleData() {
+        // Create some sample instructors
+        instructors = defaultInstructors();
         
         // Create some sample courses
         try {
             Course cs101 = new Course.Builder()
-                    .setCode(new CourseCode("CS-101"))
+                    .setCode(CourseCode.of("CS-101"))
                     .setTitle("Introduction to Programming")
                     .setCredits(3)
                     .setInstructor(instructors.get(0))
@@ -57,7 +134,7 @@ public class CLIMenu {
                     .build();
             
             Course math201 = new Course.Builder()
-                    .setCode(new CourseCode("MTH-201"))
+                    .setCode(CourseCode.of("MTH-201"))
                     .setTitle("Calculus I")
                     .setCredits(4)
                     .setInstructor(instructors.get(1))
@@ -66,7 +143,7 @@ public class CLIMenu {
                     .build();
             
             Course phys301 = new Course.Builder()
-                    .setCode(new CourseCode("PHY-301"))
+                    .setCode(CourseCode.of("PHY-301"))
                     .setTitle("Classical Mechanics")
                     .setCredits(3)
                     .setInstructor(instructors.get(2))
@@ -117,6 +194,7 @@ public class CLIMenu {
                     break;
                 case 9:
                     System.out.println("Exiting...");
+                    closeJournal();
                     break mainMenuLoop; // Using labeled break
                 default:
                     System.out.println("Invalid choice. Please try again.");
@@ -334,7 +412,7 @@ public class CLIMenu {
         
         try {
             String codeStr = getStringInput("Course Code (format: ABC-123): ");
-            CourseCode code = new CourseCode(codeStr);
+            CourseCode code = CourseCode.of(codeStr);
             String title = getStringInput("Course Title: ");
             int credits = getIntInput("Credits: ");
             
@@ -363,6 +441,7 @@ public class CLIMenu {
             Semester semester = Semester.values()[semesterChoice - 1];
             
             String department = getStringInput("Department: ");
+            int capacity = getIntInput("Seat capacity (0 for unlimited): ");
             
             Course course = new Course.Builder()
                     .setCode(code)
@@ -371,6 +450,7 @@ public class CLIMenu {
                     .setInstructor(instructor)
                     .setSemester(semester)
                     .setDepartment(department)
+                    .setCapacity(capacity)
                     .build();
             
             courseService.addCourse(course);
@@ -409,7 +489,7 @@ public class CLIMenu {
         String codeStr = getStringInput("Enter course code: ");
         
         try {
-            CourseCode code = new CourseCode(codeStr);
+            CourseCode code = CourseCode.of(codeStr);
             Course course = courseService.getCourseByCode(code);
             
             if (course == null) {
@@ -444,7 +524,7 @@ public class CLIMenu {
         String codeStr = getStringInput("Enter course code: ");
         
         try {
-            CourseCode code = new CourseCode(codeStr);
+            CourseCode code = CourseCode.of(codeStr);
             courseService.deactivateCourse(code);
             System.out.println("Course deactivated successfully!");
             
@@ -460,7 +540,9 @@ public class CLIMenu {
             System.out.println("1. Enroll Student in Course");
             System.out.println("2. Unenroll Student from Course");
             System.out.println("3. View Student Enrollments");
-            System.out.println("4. Back to Main Menu");
+            System.out.println("4. Batch Enroll from CSV");
+            System.out.println("5. View Course Roster");
+            System.out.println("6. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
             
@@ -475,12 +557,32 @@ public class CLIMenu {
                     viewStudentEnrollments();
                     break;
                 case 4:
+                    batchEnroll();
+                    break;
+                case 5:
+                    viewCourseRoster();
+                    break;
+                case 6:
                     System.out.println("Returning to main menu...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 4);
+        } while (choice != 6);
+    }
+    
+    private void batchEnroll() {
+        System.out.println("\n--- Batch Enrollment ---");
+        try {
+            String filename = getStringInput("Enter filename (rows of regNo,courseCode[,SEMESTER]): ");
+            List<EnrollmentRequest> requests = fileService.importEnrollmentRequests(filename);
+            BatchEnrollmentResult result = studentService.enrollBatch(requests.stream(), courseService);
+            ReportPrinter.printBatchResult(result);
+        } catch (IOException | FileImportException e) {
+            System.out.println("Error reading batch: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.out.println("Enrollment error: " + e.getMessage());
+        }
     }
     
     private void enrollStudent() {
@@ -494,10 +596,11 @@ public class CLIMenu {
         }
         
         String codeStr = getStringInput("Enter course code: ");
+        Course course = null;
         
         try {
-            CourseCode code = new CourseCode(codeStr);
-            Course course = courseService.getCourseByCode(code);
+            CourseCode code = CourseCode.of(codeStr);
+            course = courseService.getCourseByCode(code);
             
             if (course == null) {
                 System.out.println("Course not found.");
@@ -513,6 +616,30 @@ public class CLIMenu {
             System.out.println("Enrollment error: " + e.getMessage());
         } catch (MaxCreditLimitExceededException e) {
             System.out.println("Enrollment error: " + e.getMessage());
+        } catch (CourseFullException e) {
+            System.out.println("Enrollment error: " + e.getMessage());
+            offerWaitlist(student, course);
+        } catch (UncheckedIOException e) {
+            System.out.println("Enrollment error: " + e.getMessage());
+        }
+    }
+    
+    private void offerWaitlist(Student student, Course course) {
+        String answer = getStringInput("Join the waitlist? (y/n): ");
+        if (!answer.equalsIgnoreCase("y")) {
+            return;
+        }
+        try {
+            if (studentService.joinWaitlist(student, course)) {
+                int position = course.getWaitlist().indexOf(student) + 1;
+                System.out.println(position > 0 
+                        ? "Added to the waitlist at position " + position + "."
+                        : "A seat opened up; student enrolled from the waitlist.");
+            } else {
+                System.out.println("Student is already enrolled or waiting for this course.");
+            }
+        } catch (UncheckedIOException e) {
+            System.out.println("Enrollment error: " + e.getMessage());
         }
     }
     
@@ -529,7 +656,7 @@ public class CLIMenu {
         String codeStr = getStringInput("Enter course code: ");
         
         try {
-            CourseCode code = new CourseCode(codeStr);
+            CourseCode code = CourseCode.of(codeStr);
             Course course = courseService.getCourseByCode(code);
             
             if (course == null) {
@@ -542,6 +669,8 @@ public class CLIMenu {
             
         } catch (IllegalArgumentException e) {
             System.out.println("Error: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.out.println("Enrollment error: " + e.getMessage());
         }
     }
     
@@ -568,6 +697,23 @@ public class CLIMenu {
         }
     }
     
+    private void viewCourseRoster() {
+        System.out.println("\n--- View Course Roster ---");
+        String codeStr = getStringInput("Enter course code: ");
+        
+        try {
+            Course course = courseService.getCourseByCode(CourseCode.of(codeStr));
+            if (course == null) {
+                System.out.println("Course not found.");
+                return;
+            }
+            ReportPrinter.printRoster(course, enrollmentIndex.getRoster(course),
+                    enrollmentIndex.getGradeDistribution(course));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Error: " + e.getMessage());
+        }
+    }
+    
     private void manageGrades() {
         int choice;
         do {
@@ -607,7 +753,7 @@ public class CLIMenu {
         String codeStr = getStringInput("Enter course code: ");
         
         try {
-            CourseCode code = new CourseCode(codeStr);
+            CourseCode code = CourseCode.of(codeStr);
             
             // Find the enrollment
             Enrollment enrollment = student.getEnrollments().stream()
@@ -633,12 +779,14 @@ public class CLIMenu {
             }
             
             Grade grade = Grade.values()[gradeChoice - 1];
-            enrollment.setGrade(grade);
+            studentService.assignGrade(enrollment, grade);
             
             System.out.println("Grade assigned successfully!");
             
         } catch (IllegalArgumentException e) {
             System.out.println("Error: " + e.getMessage());
+        } catch (UncheckedIOException e) {
+            System.out.println("Error recording grade: " + e.getMessage());
         }
     }
     
@@ -655,7 +803,9 @@ public class CLIMenu {
             System.out.println("2. Import Students from CSV");
             System.out.println("3. Export Courses to CSV");
             System.out.println("4. Import Courses from CSV");
-            System.out.println("5. Back to Main Menu");
+            System.out.println("5. Save Binary Snapshot");
+            System.out.println("6. Load Binary Snapshot");
+            System.out.println("7. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
             
@@ -673,12 +823,18 @@ public class CLIMenu {
                     importCoursesFromCSV();
                     break;
                 case 5:
+                    saveSnapshot();
+                    break;
+                case 6:
+                    loadSnapshot();
+                    break;
+                case 7:
                     System.out.println("Returning to main menu...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 5);
+        } while (choice != 7);
     }
     
     private void exportStudentsToCSV() {
@@ -694,14 +850,13 @@ public class CLIMenu {
     private void importStudentsFromCSV() {
         try {
             String filename = getStringInput("Enter filename (e.g., students.csv): ");
-            List<Student> importedStudents = fileService.importStudents(filename);
+            List<Student> importedStudents = fileService.importStudentsParallel(filename);
             
             // Add imported students to the service
-            for (Student student : importedStudents) {
-                studentService.addStudent(student);
-            }
+            studentService.addStudents(importedStudents);
             
             System.out.println("Successfully imported " + importedStudents.size() + " students.");
+            replayJournal();
         } catch (IOException | FileImportException e) {
             System.out.println("Error importing students: " + e.getMessage());
         }
@@ -720,7 +875,7 @@ public class CLIMenu {
     private void importCoursesFromCSV() {
         try {
             String filename = getStringInput("Enter filename (e.g., courses.csv): ");
-            List<Course> importedCourses = fileService.importCourses(filename, instructors);
+            List<Course> importedCourses = fileService.importCoursesParallel(filename, instructors);
             
             // Add imported courses to the service
             for (Course course : importedCourses) {
@@ -728,61 +883,159 @@ public class CLIMenu {
             }
             
             System.out.println("Successfully imported " + importedCourses.size() + " courses.");
+            replayJournal();
         } catch (IOException | FileImportException e) {
             System.out.println("Error importing courses: " + e.getMessage());
         }
     }
     
+    private void saveSnapshot() {
+        try {
+            String filename = getStringInput("Enter filename (e.g., ccrm.snapshot): ");
+            // Inactive records included: loading the snapshot replaces everything in memory
+            List<Student> students = studentService.getStudentSnapshot();
+            fileService.saveSnapshot(filename, new Dataset(instructors, courseService.getCourseSnapshot(), students));
+            System.out.println("Snapshot of " + students.size() + " students saved to " + filename);
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+        }
+    }
+    
+    private void loadSnapshot() {
+        try {
+            String filename = getStringInput("Enter filename (e.g., ccrm.snapshot): ");
+            applySnapshot(filename);
+        } catch (IOException | FileImportException e) {
+            System.out.println("Error loading snapshot: " + e.getMessage());
+        }
+    }
+    
+    private void applySnapshot(String filename) throws IOException, FileImportException {
+        Dataset data = fileService.loadSnapshot(filename);
+        
+        // A snapshot replaces the in-memory dataset rather than merging into it
+        instructors = data.getInstructors();
+        courseService.replaceAllCourses(data.getCourses());
+        studentService.replaceAllStudents(data.getStudents());
+        
+        System.out.println("Loaded " + data.getStudents().size() + " students and " + 
+                data.getCourses().size() + " courses from " + filename);
+    }
+    
     private void backupOperations() {
         int choice;
         do {
             System.out.println("\n=== BACKUP OPERATIONS ===");
             System.out.println("1. Create Backup");
-            System.out.println("2. Show Backup Size");
-            System.out.println("3. Back to Main Menu");
+            System.out.println("2. Create Compressed Archive");
+            System.out.println("3. Show Backup Size");
+            System.out.println("4. Restore Backup to Directory");
+            System.out.println("5. Roll Back Data to Backup");
+            System.out.println("6. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
             
             switch (choice) {
                 case 1:
-                    createBackup();
+                    createBackup(false);
                     break;
                 case 2:
-                    showBackupSize();
+                    createBackup(true);
                     break;
                 case 3:
+                    showBackupSize();
+                    break;
+                case 4:
+                    restoreBackup();
+                    break;
+                case 5:
+                    rollBackToBackup();
+                    break;
+                case 6:
                     System.out.println("Returning to main menu...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 3);
+        } while (choice != 6);
     }
     
-    private void createBackup() {
+    private void createBackup(boolean compressed) {
         try {
             String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
             String backupName = "backup_" + timestamp;
             
-            fileService.backupData(backupName);
-            System.out.println("Backup created successfully: " + backupName);
-            
-            // Show backup size
-            long size = fileService.getBackupSize(backupName);
-            System.out.println("Backup size: " + size + " bytes");
+            // Sizes are counted during the backup, so the result needs no second walk
+            BackupResult result = compressed
+                    ? fileService.archiveData(backupName, ReportPrinter.backupProgress())
+                    : fileService.backupData(backupName, ReportPrinter.backupProgress());
+            ReportPrinter.printBackupResult(result);
             
         } catch (IOException e) {
             System.out.println("Error creating backup: " + e.getMessage());
         }
     }
     
+    private void restoreBackup() {
+        String backupName = getStringInput("Enter backup name: ");
+        String target = getStringInput("Enter directory to restore into: ");
+        
+        try {
+            fileService.restoreBackup(backupName, Paths.get(target));
+            System.out.println("Backup " + backupName + " restored to " + target);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Error restoring backup: " + e.getMessage());
+        }
+    }
+    
+    // Swaps a verified backup in as the data directory, then reloads the services from it
+    private void rollBackToBackup() {
+        String backupName = getStringInput("Enter backup name: ");
+        String snapshot = getStringInput("Snapshot file in the backup to load: ");
+        if (snapshot.isEmpty()) {
+            // The restored journal only makes sense on top of the restored data
+            System.out.println("A snapshot from the backup is required to roll back.");
+            return;
+        }
+        
+        // The journal's files are replaced too; it is reopened on the restored ones and
+        // replayed after the snapshot, so records made after that snapshot are not lost
+        if (journal != null) {
+            studentService.setEnrollmentLog(null);
+            studentService.removeEnrollmentListener(journal);
+            closeJournal();
+            journal = null;
+        }
+        boolean restored = false;
+        try {
+            Path previous = fileService.restoreDataDirectory(backupName);
+            restored = true;
+            System.out.println("Data restored from " + backupName + "; replaced data kept in " + previous);
+            applySnapshot(snapshot);
+        } catch (IOException | FileImportException | IllegalArgumentException e) {
+            System.out.println("Error restoring backup: " + e.getMessage());
+            if (restored) {
+                // The restored journal must not be replayed over the newer roster still in memory
+                courseService.replaceAllCourses(Collections.emptyList());
+                studentService.replaceAllStudents(Collections.emptyList());
+                System.out.println("Snapshot not loaded; in-memory data cleared.");
+            }
+        } finally {
+            openJournal();
+        }
+    }
+    
     private void showBackupSize() {
         String backupName = getStringInput("Enter backup folder name: ");
         
         try {
             long size = fileService.getBackupSize(backupName);
+            long stored = fileService.getStoredBackupSize(backupName);
             System.out.println("Backup size: " + size + " bytes");
-        } catch (IOException e) {
+            if (stored != size) {
+                System.out.printf("Stored size: %d bytes (%.1f%% of original)%n", stored, 100.0 * stored / size);
+            }
+        } catch (IOException | IllegalArgumentException e) {
             System.out.println("Error getting backup size: " + e.getMessage());
         }
     }
@@ -793,7 +1046,13 @@ public class CLIMenu {
             System.out.println("\n=== REPORTS ===");
             System.out.println("1. GPA Distribution");
             System.out.println("2. Top Students");
-            System.out.println("3. Back to Main Menu");
+            System.out.println("3. Department Leaderboard");
+            System.out.println("4. Student GPA Rank");
+            System.out.println("5. Department, Semester and Credit Load Summary");
+            System.out.println("6. GPA Distribution from Snapshot File");
+            System.out.println("7. Course Statistics");
+            System.out.println("8. Service Metrics");
+            System.out.println("9. Back to Main Menu");
             
             choice = getIntInput("Enter your choice: ");
             
@@ -805,70 +1064,110 @@ public class CLIMenu {
                     generateTopStudents();
                     break;
                 case 3:
+                    generateDepartmentLeaderboard();
+                    break;
+                case 4:
+                    showStudentRank();
+                    break;
+                case 5:
+                    generateEnrollmentSummary();
+                    break;
+                case 6:
+                    generateSnapshotGPADistribution();
+                    break;
+                case 7:
+                    generateCourseStatistics();
+                    break;
+                case 8:
+                    showServiceMetrics();
+                    break;
+                case 9:
                     System.out.println("Returning to main menu...");
                     break;
                 default:
                     System.out.println("Invalid choice. Please try again.");
             }
-        } while (choice != 3);
+        } while (choice != 9);
+    }
+    
+    // All reports come from one parallel pass over a point-in-time view of the roster
+    private AnalyticsReport analyzeStudents() {
+        return analytics.analyze(studentService.openReadView());
     }
     
     private void generateGPADistribution() {
         System.out.println("\n--- GPA Distribution Report ---");
-        
-        List<Student> students = studentService.getAllStudents();
-        
-        // Using Stream API to calculate GPA distribution
-        long excellent = students.stream()
-                .filter(s -> s.calculateGPA() >= 9.0)
-                .count();
-        
-        long good = students.stream()
-                .filter(s -> s.calculateGPA() >= 7.5 && s.calculateGPA() < 9.0)
-                .count();
-        
-        long average = students.stream()
-                .filter(s -> s.calculateGPA() >= 6.0 && s.calculateGPA() < 7.5)
-                .count();
-        
-        long belowAverage = students.stream()
-                .filter(s -> s.calculateGPA() > 0 && s.calculateGPA() < 6.0)
-                .count();
-        
-        long noGPA = students.stream()
-                .filter(s -> s.calculateGPA() == 0)
-                .count();
-        
-        System.out.println("GPA Distribution:");
-        System.out.println("Excellent (9.0+): " + excellent + " students");
-        System.out.println("Good (7.5-8.9): " + good + " students");
-        System.out.println("Average (6.0-7.4): " + average + " students");
-        System.out.println("Below Average (0.1-5.9): " + belowAverage + " students");
-        System.out.println("No GPA (0.0): " + noGPA + " students");
+        ReportPrinter.printGPADistribution(analyzeStudents().getGpaDistribution());
+    }
+    
+    // Reads a snapshot through a memory-mapped view instead of loading it into the services
+    private void generateSnapshotGPADistribution() {
+        try {
+            String filename = getStringInput("Enter snapshot filename (e.g., ccrm.snapshot): ");
+            MappedDataset data = fileService.mapSnapshot(filename, true);
+            System.out.println("\n--- GPA Distribution Report (" + filename + ") ---");
+            ReportPrinter.printGPADistribution(ReportPrinter.snapshotGPADistribution(data));
+        } catch (IOException | FileImportException e) {
+            System.out.println("Error reading snapshot: " + e.getMessage());
+        }
     }
     
     private void generateTopStudents() {
         System.out.println("\n--- Top Students Report ---");
         
-        List<Student> students = studentService.getAllStudents();
-        
-        // Using Stream API to find top students by GPA
-        List<Student> topStudents = students.stream()
-                .filter(s -> s.calculateGPA() > 0)
-                .sorted((s1, s2) -> Double.compare(s2.calculateGPA(), s1.calculateGPA()))
-                .limit(5)
-                .collect(Collectors.toList());
+        ReportPrinter.printTopStudents(leaderboard.top(TOP_STUDENTS), TOP_STUDENTS);
+    }
+    
+    private void generateDepartmentLeaderboard() {
+        System.out.println("\n--- Department Leaderboard ---");
+        System.out.println("Departments: " + String.join(", ", leaderboard.getDepartments()));
+        String department = getStringInput("Enter department: ");
         
-        if (topStudents.isEmpty()) {
-            System.out.println("No students with GPA data available.");
+        List<GpaLeaderboard.Standing> standings = leaderboard.top(department, TOP_STUDENTS);
+        if (standings.isEmpty()) {
+            System.out.println("No graded students in " + department + ".");
         } else {
-            System.out.println("Top 5 Students by GPA:");
-            for (int i = 0; i < topStudents.size(); i++) {
-                Student student = topStudents.get(i);
-                System.out.printf("%d. %s - GPA: %.2f%n", 
-                        i + 1, student.getFullName(), student.calculateGPA());
-            }
+            System.out.println("Top " + TOP_STUDENTS + " Students in " + department + " by department GPA:");
+            ReportPrinter.printStandings(standings);
+        }
+    }
+    
+    private void showStudentRank() {
+        System.out.println("\n--- Student GPA Rank ---");
+        String regNo = getStringInput("Enter student registration number: ");
+        Student student = studentService.getStudentByRegNo(regNo);
+        
+        if (student == null) {
+            System.out.println("Student not found.");
+            return;
         }
+        
+        int rank = leaderboard.rankOf(student);
+        if (rank == 0) {
+            System.out.println(student.getFullName() + " has no GPA yet and is not ranked.");
+            return;
+        }
+        System.out.printf("%s - GPA: %.2f - Overall rank: %d%n", student.getFullName(), student.calculateGPA(), rank);
+        for (String department : leaderboard.departmentsOf(student)) {
+            System.out.println("  " + department + " rank: " + leaderboard.rankOf(student, department));
+        }
+    }
+    
+    private void generateEnrollmentSummary() {
+        System.out.println("\n--- Enrollment Summary ---");
+        ReportPrinter.printEnrollmentSummary(analyzeStudents());
+    }
+    
+    // Column scan kept in sync by enrollment events, so no pass over the object graph
+    private void generateCourseStatistics() {
+        System.out.println("\n--- Course Statistics ---");
+        ReportPrinter.printCourseStats(columns.courseStats());
+    }
+    
+    // Latencies since startup; the same data is published over JMX as edu.ccrm:type=Metrics
+    private void showServiceMetrics() {
+        System.out.println("\n--- Service Metrics ---");
+        System.out.print(Metrics.dump());
     }
     
     private void displayJavaPlatformInfo() {
@@ -0,0 +1,296 @@
+
+// src/edu/ccrm/cli/HeadlessRunner.java
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.FileImportException;
+import edu.ccrm.io.Dataset;
+import edu.ccrm.io.EnrollmentJournal;
+import edu.ccrm.io.FileService;
+import edu.ccrm.io.MappedDataset;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.report.ColumnarStore;
+import edu.ccrm.report.GpaLeaderboard;
+import edu.ccrm.report.StudentAnalytics;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentIndex;
+import edu.ccrm.service.EnrollmentRequest;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.CourseCode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs CLIMenu operations without prompts, for scheduled jobs and scripts.
+ *
+ * Each argument is one command, or "-f file" reads commands from a file, one per line
+ * with # comments. Commands run in order in a single JVM against empty services (no
+ * sample data), and the first failure stops the run with exit status 1:
+ * <pre>
+ * import-students FILE      import-courses FILE      enroll-batch FILE
+ * export-students FILE      export-courses FILE
+ * save-snapshot FILE        load-snapshot FILE
+ * report gpa | top [N] | summary | courses | roster CODE | snapshot-gpa FILE | metrics
+ * backup [NAME]             archive [NAME]           restore NAME DIRECTORY
+ * rollback NAME SNAPSHOT    (replace the data directory with a backup, then load SNAPSHOT from it)
+ * </pre>
+ * Example: java edu.ccrm.cli.HeadlessRunner "import-courses courses.csv" "report summary"
+ */
+public class HeadlessRunner {
+    private final StudentService studentService = new StudentService();
+    private final CourseService courseService = new CourseService();
+    private final FileService fileService = new FileService();
+    private final StudentAnalytics analytics = new StudentAnalytics();
+    private final GpaLeaderboard leaderboard = new GpaLeaderboard();
+    private final ColumnarStore columns = new ColumnarStore();
+    private final EnrollmentIndex enrollmentIndex = new EnrollmentIndex();
+    private List<Instructor> instructors = CLIMenu.defaultInstructors();
+    private EnrollmentJournal journal;
+
+    public static void main(String[] args) {
+        if (args.length == 0 || (args[0].equals("-f") && args.length != 2)) {
+            System.err.println("Usage: HeadlessRunner COMMAND... | -f COMMAND_FILE");
+            System.exit(2);
+        }
+
+        List<String> commands;
+        try {
+            commands = args[0].equals("-f") ? Files.readAllLines(Paths.get(args[1])) : Arrays.asList(args);
+        } catch (IOException e) {
+            System.err.println("Error reading command file: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(new HeadlessRunner().run(commands));
+    }
+
+    /**
+     * Runs the commands in order and returns the process exit status.
+     */
+    public int run(List<String> commands) {
+        try {
+            open();
+            for (String line : commands) {
+                String command = line.trim();
+                if (command.isEmpty() || command.startsWith("#")) {
+                    continue;
+                }
+                System.out.println("> " + command);
+                execute(command.split("\\s+"));
+            }
+            return 0;
+        } catch (IOException | FileImportException | IllegalArgumentException | UncheckedIOException e) {
+            System.err.println("Error: " + e.getMessage());
+            return 1;
+        } finally {
+            close();
+        }
+    }
+
+    // Same wiring as CLIMenu: rankings first so grades restored by the journal reach them
+    private void open() throws IOException {
+        Metrics.registerMBean();
+        studentService.addEnrollmentListener(leaderboard);
+        studentService.addEnrollmentListener(columns);
+        studentService.addEnrollmentListener(enrollmentIndex);
+        journal = fileService.openEnrollmentJournal(studentService::getStudentSnapshot);
+        studentService.setEnrollmentLog(journal);
+        studentService.addEnrollmentListener(journal);
+    }
+
+    private void close() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing enrollment journal: " + e.getMessage());
+        }
+    }
+
+    private void execute(String[] command) throws IOException, FileImportException {
+        switch (command[0]) {
+            case "import-students":
+                importStudents(argument(command, 1));
+                break;
+            case "import-courses":
+                importCourses(argument(command, 1));
+                break;
+            case "enroll-batch":
+                List<EnrollmentRequest> requests = fileService.importEnrollmentRequests(argument(command, 1));
+                ReportPrinter.printBatchResult(studentService.enrollBatch(requests.stream(), courseService));
+                break;
+            case "export-students":
+                fileService.exportStudents(studentService.getAllStudents(), argument(command, 1));
+                System.out.println("Students exported to " + command[1]);
+                break;
+            case "export-courses":
+                fileService.exportCourses(courseService.getAllCourses(), argument(command, 1));
+                System.out.println("Courses exported to " + command[1]);
+                break;
+            case "save-snapshot":
+                List<Student> students = studentService.getStudentSnapshot();
+                fileService.saveSnapshot(argument(command, 1),
+                        new Dataset(instructors, courseService.getCourseSnapshot(), students));
+                System.out.println("Snapshot of " + students.size() + " students saved to " + command[1]);
+                break;
+            case "load-snapshot":
+                loadSnapshot(argument(command, 1));
+                break;
+            case "report":
+                report(command);
+                break;
+            case "backup":
+                ReportPrinter.printBackupResult(
+                        fileService.backupData(backupName(command), ReportPrinter.backupProgress()));
+                break;
+            case "archive":
+                ReportPrinter.printBackupResult(
+                        fileService.archiveData(backupName(command), ReportPrinter.backupProgress()));
+                break;
+            case "rollback":
+                rollback(argument(command, 1), argument(command, 2));
+                break;
+            case "restore":
+                fileService.restoreBackup(argument(command, 1), Paths.get(argument(command, 2)));
+                System.out.println("Backup " + command[1] + " restored to " + command[2]);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command: " + command[0]);
+        }
+    }
+
+    private void importStudents(String filename) throws IOException, FileImportException {
+        List<Student> imported = fileService.importStudentsParallel(filename);
+        studentService.addStudents(imported);
+        System.out.println("Imported " + imported.size() + " students.");
+        replayJournal();
+    }
+
+    private void importCourses(String filename) throws IOException, FileImportException {
+        List<Course> imported = fileService.importCoursesParallel(filename, instructors);
+        for (Course course : imported) {
+            courseService.addCourse(course);
+        }
+        System.out.println("Imported " + imported.size() + " courses.");
+        replayJournal();
+    }
+
+    private void loadSnapshot(String filename) throws IOException, FileImportException {
+        Dataset data = fileService.loadSnapshot(filename);
+        instructors = data.getInstructors();
+        courseService.replaceAllCourses(data.getCourses());
+        studentService.replaceAllStudents(data.getStudents());
+        leaderboard.rebuild(studentService.getStudentSnapshot());
+        System.out.println("Loaded " + data.getStudents().size() + " students and " +
+                data.getCourses().size() + " courses from " + filename);
+    }
+
+    // Same order as the menu: the journal is reopened on the restored files after the snapshot is loaded
+    private void rollback(String backupName, String snapshot) throws IOException, FileImportException {
+        studentService.setEnrollmentLog(null);
+        studentService.removeEnrollmentListener(journal);
+        journal.close();
+        journal = null;
+        try {
+            Path previous = fileService.restoreDataDirectory(backupName);
+            System.out.println("Data restored from " + backupName + "; replaced data kept in " + previous);
+            try {
+                loadSnapshot(snapshot);
+            } catch (IOException | FileImportException | RuntimeException e) {
+                // The restored journal must not be replayed over the newer roster still in memory
+                courseService.replaceAllCourses(Collections.emptyList());
+                studentService.replaceAllStudents(Collections.emptyList());
+                System.out.println("Snapshot not loaded; in-memory data cleared");
+                throw e;
+            }
+        } finally {
+            journal = fileService.openEnrollmentJournal(studentService::getStudentSnapshot);
+            replayJournal();
+            studentService.setEnrollmentLog(journal);
+            studentService.addEnrollmentListener(journal);
+        }
+    }
+
+    // Replay is idempotent; enrollments only come back once both sides of them are loaded
+    private void replayJournal() throws IOException {
+        int restored = journal.replay(studentService, courseService);
+        if (restored > 0) {
+            System.out.println("Restored " + restored + " enrollment records from the journal.");
+        }
+    }
+
+    private void report(String[] command) throws IOException, FileImportException {
+        switch (argument(command, 1)) {
+            case "gpa":
+                ReportPrinter.printGPADistribution(
+                        analytics.analyze(studentService.openReadView()).getGpaDistribution());
+                break;
+            case "top":
+                int limit = command.length > 2 ? parseCount(command[2]) : StudentAnalytics.DEFAULT_TOP_K;
+                ReportPrinter.printTopStudents(leaderboard.top(limit), limit);
+                break;
+            case "summary":
+                ReportPrinter.printEnrollmentSummary(
+                        analytics.analyze(studentService.openReadView()));
+                break;
+            case "courses":
+                ReportPrinter.printCourseStats(columns.courseStats());
+                break;
+            case "roster":
+                Course course = courseService.getCourseByCode(CourseCode.of(argument(command, 2)));
+                if (course == null) {
+                    throw new IllegalArgumentException("Course not found: " + command[2]);
+                }
+                ReportPrinter.printRoster(course, enrollmentIndex.getRoster(course),
+                        enrollmentIndex.getGradeDistribution(course));
+                break;
+            case "snapshot-gpa":
+                MappedDataset data = fileService.mapSnapshot(argument(command, 2), true);
+                ReportPrinter.printGPADistribution(ReportPrinter.snapshotGPADistribution(data));
+                break;
+            case "metrics":
+                System.out.print(Metrics.dump());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown report: " + command[1]);
+        }
+    }
+
+    // Timestamped like the menu's backups when no name is given
+    private static String backupName(String[] command) {
+        return command.length > 1 ? command[1]
+                : "backup_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss"));
+    }
+
+    private static String argument(String[] command, int index) {
+        if (command.length <= index) {
+            throw new IllegalArgumentException("Missing argument for " + command[0]);
+        }
+        return command[index];
+    }
+
+    private static int parseCount(String value) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count > 0) {
+                return count;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Not a positive count: " + value);
+    }
+}
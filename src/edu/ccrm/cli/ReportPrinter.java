@@ -0,0 +1,141 @@
+
+// src/edu/ccrm/cli/ReportPrinter.java
+package edu.ccrm.cli;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.io.BackupProgress;
+import edu.ccrm.io.BackupResult;
+import edu.ccrm.io.MappedDataset;
+import edu.ccrm.report.AnalyticsReport;
+import edu.ccrm.report.GpaBand;
+import edu.ccrm.report.GpaLeaderboard;
+import edu.ccrm.report.GroupStats;
+import edu.ccrm.service.BatchEnrollmentResult;
+
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Report output shared by the interactive menu and the headless runner.
+ */
+final class ReportPrinter {
+    private ReportPrinter() {
+    }
+    
+    static void printGPADistribution(Map<GpaBand, Long> distribution) {
+        System.out.println("GPA Distribution:");
+        distribution.forEach((band, count) -> System.out.println(band.getLabel() + ": " + count + " students"));
+    }
+    
+    // Counts active students per band straight from a mapped snapshot
+    static Map<GpaBand, Long> snapshotGPADistribution(MappedDataset data) {
+        Map<GpaBand, Long> distribution = new EnumMap<>(GpaBand.class);
+        for (GpaBand band : GpaBand.values()) {
+            distribution.put(band, 0L);
+        }
+        MappedDataset.StudentView student = data.studentView();
+        for (int i = 0; i < data.studentCount(); i++) {
+            student.moveTo(i);
+            if (student.isActive()) {
+                distribution.merge(GpaBand.of(student.calculateGPA()), 1L, Long::sum);
+            }
+        }
+        return distribution;
+    }
+    
+    static void printStandings(List<GpaLeaderboard.Standing> standings) {
+        for (int i = 0; i < standings.size(); i++) {
+            GpaLeaderboard.Standing standing = standings.get(i);
+            System.out.printf("%d. %s - GPA: %.2f%n", 
+                    i + 1, standing.getStudent().getFullName(), standing.getGpa());
+        }
+    }
+    
+    static void printTopStudents(List<GpaLeaderboard.Standing> topStudents, int limit) {
+        if (topStudents.isEmpty()) {
+            System.out.println("No students with GPA data available.");
+        } else {
+            System.out.println("Top " + limit + " Students by GPA:");
+            printStandings(topStudents);
+        }
+    }
+    
+    static void printEnrollmentSummary(AnalyticsReport report) {
+        System.out.println("Active students: " + report.getStudentCount());
+        
+        System.out.println("\nBy Department:");
+        report.getDepartmentStats().forEach((department, stats) -> 
+                System.out.println("  " + department + ": " + stats));
+        
+        System.out.println("\nBy Semester:");
+        report.getSemesterStats().forEach((semester, stats) -> 
+                System.out.println("  " + semester + ": " + stats));
+        
+        System.out.println("\nCredit Load (total enrolled credits):");
+        report.getCreditLoad().forEach((credits, count) -> 
+                System.out.println("  " + credits + " credits: " + count + " students"));
+    }
+    
+    static void printCourseStats(Map<Course, GroupStats> stats) {
+        if (stats.isEmpty()) {
+            System.out.println("No enrollments for active students.");
+            return;
+        }
+        stats.entrySet().stream()
+                .sorted(Comparator.comparing(entry -> entry.getKey().getCode().toString()))
+                .forEach(entry -> System.out.println("  " + entry.getKey().getCode() + " " +
+                        entry.getKey().getTitle() + ": " + entry.getValue()));
+    }
+    
+    static void printRoster(Course course, List<Student> roster, Map<Grade, Long> grades) {
+        System.out.println(course.getCode() + " " + course.getTitle() + " - " + roster.size() + " enrolled");
+        roster.forEach(student -> 
+                System.out.println("  " + student.getRegNo() + " " + student.getFullName()));
+        
+        long graded = grades.values().stream().mapToLong(Long::longValue).sum();
+        System.out.println("\nGrades (" + graded + " graded, " + (roster.size() - graded) + " pending):");
+        grades.forEach((grade, count) -> System.out.println("  " + grade + ": " + count));
+    }
+    
+    // Overwrites one console line at most every half second, then ends it when the last file is done
+    static BackupProgress backupProgress() {
+        AtomicLong lastPrinted = new AtomicLong(System.nanoTime());
+        return (filesDone, fileCount, bytesDone, totalBytes) -> {
+            long now = System.nanoTime();
+            long last = lastPrinted.get();
+            boolean finished = filesDone == fileCount;
+            if (finished || (now - last > 500_000_000L && lastPrinted.compareAndSet(last, now))) {
+                synchronized (System.out) {
+                    System.out.printf("\rBacked up %d/%d files, %d/%d MB", filesDone, fileCount,
+                            bytesDone >> 20, totalBytes >> 20);
+                    if (finished) {
+                        System.out.println();
+                    }
+                }
+            }
+        };
+    }
+    
+    static void printBackupResult(BackupResult result) {
+        System.out.println("Backup created: " + result);
+    }
+    
+    static void printBatchResult(BatchEnrollmentResult result) {
+        System.out.printf("Processed %d rows in %d ms (%.1f us/row)%n", result.size(),
+                result.getElapsedNanos() / 1_000_000, result.getNanosPerRow() / 1000);
+        result.getCounts().forEach((status, count) -> {
+            if (count > 0) {
+                System.out.println("  " + status + ": " + count);
+            }
+        });
+        result.getResults().stream()
+                .filter(r -> !r.isSuccess())
+                .limit(10)
+                .forEach(r -> System.out.println("  " + r));
+    }
+}
@@ -2,8 +2,22 @@
 package edu.ccrm.domain;
 
 import edu.ccrm.util.CourseCode;
+import edu.ccrm.util.StringPool;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class Course {
+    public static final int UNLIMITED = 0;
+    // Upper bound on credits, so they fit the short columns of ColumnarStore
+    public static final int MAX_CREDITS = Short.MAX_VALUE;
+    
     private CourseCode code; // Immutable value object
     private String title;
     private int credits;
@@ -11,6 +25,15 @@ public class Course {
     private Semester semester;
     private String department;
     private boolean active;
+    private final int capacity;
+    
+    // Seats taken through StudentService; a CAS loop, so a full section never blocks on a lock
+    private final AtomicInteger seatsTaken = new AtomicInteger();
+    private final Deque<Student> waitlist = new ConcurrentLinkedDeque<>();
+    private final Set<Student> waiting = ConcurrentHashMap.newKeySet();
+    
+    // Told when the active flag flips, so the catalog holding the course keeps its indexes current
+    private volatile Consumer<Course> activeListener;
     
     // Using Builder pattern
     private Course(Builder builder) {
@@ -20,6 +43,7 @@ public class Course {
         this.instructor = builder.instructor;
         this.semester = builder.semester;
         this.department = builder.department;
+        this.capacity = builder.capacity;
         this.active = true;
     }
     
@@ -31,6 +55,7 @@ public class Course {
         private Instructor instructor;
         private Semester semester;
         private String department;
+        private int capacity = UNLIMITED;
         
         public Builder setCode(CourseCode code) {
             this.code = code;
@@ -43,6 +68,9 @@ public class Course {
         }
         
         public Builder setCredits(int credits) {
+            if (credits < 0 || credits > MAX_CREDITS) {
+                throw new IllegalArgumentException("Credits must be between 0 and " + MAX_CREDITS + ": " + credits);
+            }
             this.credits = credits;
             return this;
         }
@@ -57,8 +85,18 @@ public class Course {
             return this;
         }
         
+        // Canonicalized, so courses of one department share a single string
         public Builder setDepartment(String department) {
-            this.department = department;
+            this.department = StringPool.DEPARTMENTS.intern(department);
+            return this;
+        }
+        
+        // Maximum enrolled students; UNLIMITED (0) means no cap
+        public Builder setCapacity(int capacity) {
+            if (capacity < 0) {
+                throw new IllegalArgumentException("Capacity must not be negative: " + capacity);
+            }
+            this.capacity = capacity;
             return this;
         }
         
@@ -75,14 +113,88 @@ public class Course {
     public Semester getSemester() { return semester; }
     public String getDepartment() { return department; }
     public boolean isActive() { return active; }
+    public int getCapacity() { return capacity; }
+    public int getSeatsTaken() { return seatsTaken.get(); }
+    
+    public int getAvailableSeats() {
+        return capacity == UNLIMITED ? Integer.MAX_VALUE : Math.max(0, capacity - seatsTaken.get());
+    }
+    
+    // Takes a seat if one is free
+    public boolean tryReserveSeat() {
+        while (true) {
+            int taken = seatsTaken.get();
+            if (capacity != UNLIMITED && taken >= capacity) {
+                return false;
+            }
+            if (seatsTaken.compareAndSet(taken, taken + 1)) {
+                return true;
+            }
+        }
+    }
+    
+    // Takes a seat regardless of capacity, for enrollments restored from earlier records
+    public void occupySeat() {
+        seatsTaken.incrementAndGet();
+    }
+    
+    public void releaseSeat() {
+        seatsTaken.decrementAndGet();
+    }
+    
+    // FIFO waitlist; returns false if the student is already waiting
+    public boolean addToWaitlist(Student student) {
+        if (!waiting.add(student)) {
+            return false;
+        }
+        waitlist.offerLast(student);
+        return true;
+    }
+    
+    public boolean removeFromWaitlist(Student student) {
+        return waiting.remove(student) && waitlist.remove(student);
+    }
+    
+    public Student pollWaitlist() {
+        Student next = waitlist.pollFirst();
+        if (next != null) {
+            waiting.remove(next);
+        }
+        return next;
+    }
+    
+    // Puts a student back at the head after a promotion lost the seat to a direct enrollment
+    public void returnToWaitlist(Student student) {
+        if (waiting.add(student)) {
+            waitlist.offerFirst(student);
+        }
+    }
+    
+    public List<Student> getWaitlist() {
+        return new ArrayList<>(waitlist);
+    }
+    
+    public void setActive(boolean active) {
+        if (this.active == active) {
+            return;
+        }
+        this.active = active;
+        Consumer<Course> listener = activeListener;
+        if (listener != null) {
+            listener.accept(this);
+        }
+    }
+    
+    public Consumer<Course> getActiveListener() { return activeListener; }
+    public void setActiveListener(Consumer<Course> listener) { this.activeListener = listener; }
     
-    public void setActive(boolean active) { this.active = active; }
     public void setInstructor(Instructor instructor) { this.instructor = instructor; }
     
     @Override
     public String toString() {
         return "Course [code=" + code + ", title=" + title + ", credits=" + credits + 
                ", instructor=" + (instructor != null ? instructor.getFullName() : "None") + 
-               ", semester=" + semester + ", department=" + department + "]";
+               ", semester=" + semester + ", department=" + department + 
+               (capacity != UNLIMITED ? ", seats=" + seatsTaken.get() + "/" + capacity : "") + "]";
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+
+// src/edu/ccrm/domain/CourseKey.java
+package edu.ccrm.domain;
+
+import edu.ccrm.util.CourseCode;
+
+/**
+ * Identifies one offering of a course: the same code can run in several semesters.
+ */
+public final class CourseKey {
+    private final CourseCode code;
+    private final Semester semester;
+    
+    public CourseKey(CourseCode code, Semester semester) {
+        this.code = code;
+        this.semester = semester;
+    }
+    
+    public static CourseKey of(Course course) {
+        return new CourseKey(course.getCode(), course.getSemester());
+    }
+    
+    public CourseCode getCode() { return code; }
+    public Semester getSemester() { return semester; }
+    
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        CourseKey that = (CourseKey) obj;
+        return semester == that.semester && 
+               (code == null ? that.code == null : code.equals(that.code));
+    }
+    
+    @Override
+    public int hashCode() {
+        return 31 * (code != null ? code.hashCode() : 0) + (semester != null ? semester.ordinal() : -1);
+    }
+    
+    @Override
+    public String toString() {
+        return code + "/" + semester;
+    }
+}
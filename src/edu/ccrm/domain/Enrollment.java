@@ -8,12 +8,18 @@ public class Enrollment {
     private Student student;
     private Course course;
     private LocalDate enrollmentDate;
-    private Grade grade;
+    private volatile Grade grade;
+    private volatile Student owner;
     
     public Enrollment(Student student, Course course) {
+        this(student, course, LocalDate.now());
+    }
+    
+    // Used when restoring an enrollment that was recorded earlier
+    public Enrollment(Student student, Course course, LocalDate enrollmentDate) {
         this.student = student;
         this.course = course;
-        this.enrollmentDate = LocalDate.now();
+        this.enrollmentDate = enrollmentDate;
         this.grade = null;
     }
     
@@ -22,7 +28,37 @@ public class Enrollment {
     public LocalDate getEnrollmentDate() { return enrollmentDate; }
     public Grade getGrade() { return grade; }
     
-    public void setGrade(Grade grade) { this.grade = grade; }
+    public void setGrade(Grade grade) {
+        Student current = owner;
+        if (current != null) {
+            current.regrade(this, grade);
+        } else {
+            this.grade = grade;
+        }
+    }
+    
+    // Raw write; Student.regrade calls this under the student's lock
+    void storeGrade(Grade grade) {
+        this.grade = grade;
+    }
+    
+    boolean isOwnedBy(Student student) {
+        return owner == student;
+    }
+    
+    // The student whose enrollment list currently holds this enrollment, if any
+    void attach(Student student) {
+        if (owner != null && owner != student) {
+            throw new IllegalStateException("Enrollment already belongs to " + owner.getRegNo());
+        }
+        owner = student;
+    }
+    
+    void detach(Student student) {
+        if (owner == student) {
+            owner = null;
+        }
+    }
     
     @Override
     public String toString() {
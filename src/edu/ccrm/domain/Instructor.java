@@ -2,12 +2,14 @@
 // src/edu/ccrm/domain/Instructor.java
 package edu.ccrm.domain;
 
+import edu.ccrm.util.StringPool;
+
 public class Instructor extends Person {
     private String department;
     
     public Instructor(String id, String fullName, String email, String department) {
-        super(id, fullName, email);
-        this.department = department;
+        super(StringPool.INSTRUCTOR_IDS.intern(id), fullName, email);
+        this.department = StringPool.DEPARTMENTS.intern(department);
     }
     
     @Override
@@ -16,7 +18,7 @@ public class Instructor extends Person {
     }
     
     public String getDepartment() { return department; }
-    public void setDepartment(String department) { this.department = department; }
+    public void setDepartment(String department) { this.department = StringPool.DEPARTMENTS.intern(department); }
     
     @Override
     public String toString() {
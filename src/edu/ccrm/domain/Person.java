@@ -33,6 +33,7 @@ public abstract class Person {
     public void setEmail(String email) { this.email = email; }
     
     public LocalDate getDateCreated() { return dateCreated; }
+    public void setDateCreated(LocalDate dateCreated) { this.dateCreated = dateCreated; }
     
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
@@ -2,17 +2,41 @@
 // src/edu/ccrm/domain/Student.java
 package edu.ccrm.domain;
 
-import java.util.ArrayList;
+import edu.ccrm.util.CourseCode;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * Enrollment state is guarded by the student's own monitor. StudentService holds it across
+ * each check-then-act, so every student is its own lock stripe. The enrollment list is
+ * copy-on-write, so readers can iterate it without locking while it changes.
+ */
 public class Student extends Person {
     private String regNo;
     private List<Enrollment> enrollments;
+    private final List<Enrollment> enrollmentsView;
+    
+    // Running GPA totals over graded enrollments. Grade points and credits are whole numbers,
+    // so adding and subtracting them is exact and matches a full recomputation bit for bit.
+    private double totalPoints;
+    private int totalCredits;
+    
+    // Enrollments by course offering, and enrolled credits per semester, for constant-time
+    // duplicate and credit-limit checks. Courses without a semester are counted separately.
+    private final Map<CourseKey, Enrollment> byCourse = new HashMap<>();
+    private final Map<Semester, Integer> semesterCredits = new EnumMap<>(Semester.class);
+    private int unscheduledCredits;
     
     public Student(String id, String regNo, String fullName, String email) {
         super(id, fullName, email);
         this.regNo = regNo;
-        this.enrollments = new ArrayList<>();
+        this.enrollments = new CopyOnWriteArrayList<>();
+        this.enrollmentsView = Collections.unmodifiableList(enrollments);
     }
     
     @Override
@@ -23,29 +47,78 @@ public class Student extends Person {
     public String getRegNo() { return regNo; }
     public void setRegNo(String regNo) { this.regNo = regNo; }
     
-    public List<Enrollment> getEnrollments() { return enrollments; }
+    // Read-only: enrollments must go through addEnrollment/removeEnrollment to keep the GPA totals right
+    public List<Enrollment> getEnrollments() { return enrollmentsView; }
     
-    public void addEnrollment(Enrollment enrollment) {
+    public synchronized void addEnrollment(Enrollment enrollment) {
+        enrollment.attach(this);
         enrollments.add(enrollment);
+        byCourse.putIfAbsent(CourseKey.of(enrollment.getCourse()), enrollment);
+        applyCredits(enrollment, 1);
+        applyGrade(enrollment, enrollment.getGrade(), 1);
+    }
+    
+    public synchronized void removeEnrollment(Enrollment enrollment) {
+        if (enrollments.remove(enrollment)) {
+            enrollment.detach(this);
+            CourseKey key = CourseKey.of(enrollment.getCourse());
+            if (byCourse.remove(key, enrollment)) {
+                // Only restored data can hold two enrollments for one offering; keep the next one findable
+                for (Enrollment other : enrollments) {
+                    if (key.equals(CourseKey.of(other.getCourse()))) {
+                        byCourse.put(key, other);
+                        break;
+                    }
+                }
+            }
+            applyCredits(enrollment, -1);
+            applyGrade(enrollment, enrollment.getGrade(), -1);
+        }
     }
     
-    public void removeEnrollment(Enrollment enrollment) {
-        enrollments.remove(enrollment);
+    // The enrollment in the given course offering, or null
+    public synchronized Enrollment getEnrollment(CourseCode code, Semester semester) {
+        return byCourse.get(new CourseKey(code, semester));
     }
     
-    public double calculateGPA() {
-        if (enrollments.isEmpty()) return 0.0;
-        
-        double totalPoints = 0.0;
-        int totalCredits = 0;
-        
-        for (Enrollment enrollment : enrollments) {
-            if (enrollment.getGrade() != null) {
-                totalPoints += enrollment.getGrade().getPoints() * enrollment.getCourse().getCredits();
-                totalCredits += enrollment.getCourse().getCredits();
-            }
+    public synchronized boolean isEnrolledIn(Course course) {
+        return byCourse.containsKey(CourseKey.of(course));
+    }
+    
+    // Credits enrolled in the given semester; null means courses without a semester
+    public synchronized int getCredits(Semester semester) {
+        return semester == null ? unscheduledCredits : semesterCredits.getOrDefault(semester, 0);
+    }
+    
+    private void applyCredits(Enrollment enrollment, int sign) {
+        Course course = enrollment.getCourse();
+        int credits = sign * course.getCredits();
+        if (course.getSemester() == null) {
+            unscheduledCredits += credits;
+        } else {
+            semesterCredits.merge(course.getSemester(), credits, Integer::sum);
+        }
+    }
+    
+    // Called by Enrollment.setGrade while the enrollment belongs to this student
+    synchronized void regrade(Enrollment enrollment, Grade grade) {
+        Grade previous = enrollment.getGrade();
+        enrollment.storeGrade(grade);
+        if (enrollment.isOwnedBy(this)) {
+            applyGrade(enrollment, previous, -1);
+            applyGrade(enrollment, grade, 1);
         }
-        
+    }
+    
+    private void applyGrade(Enrollment enrollment, Grade grade, int sign) {
+        if (grade != null) {
+            int credits = enrollment.getCourse().getCredits();
+            totalPoints += sign * grade.getPoints() * credits;
+            totalCredits += sign * credits;
+        }
+    }
+    
+    public synchronized double calculateGPA() {
         return totalCredits > 0 ? totalPoints / totalCredits : 0.0;
     }
     
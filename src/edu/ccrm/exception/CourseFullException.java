@@ -0,0 +1,13 @@
+
+// src/edu/ccrm/exception/CourseFullException.java
+package edu.ccrm.exception;
+
+public class CourseFullException extends Exception {
+    public CourseFullException(String message) {
+        super(message);
+    }
+    
+    public CourseFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
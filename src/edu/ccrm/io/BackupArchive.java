@@ -0,0 +1,419 @@
+
+// src/edu/ccrm/io/BackupArchive.java
+package edu.ccrm.io;
+
+import edu.ccrm.exception.FileImportException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A backup written as one compressed file, with an index at the end so sizes can be read
+ * without decompressing anything.
+ *
+ * <pre>
+ * header  : "CCRZ" magic, short version
+ * blocks  : one raw deflate stream per block of up to 4 MB of a file, files in index order
+ * index   : varint file count, then per file:
+ *             string path, varlong size, zigzag modified millis, varint block count,
+ *             then per block: varlong compressed length, varlong CRC32 of the uncompressed block
+ * trailer : long index offset, int index length, int CRC32 of the index, "CCRZ" magic
+ * </pre>
+ * Blocks are compressed independently, so they are spread over a pool regardless of how
+ * the data is divided into files; the writer appends them in order and keeps only a few
+ * blocks per worker in flight.
+ */
+final class BackupArchive {
+    static final String SUFFIX = ".ccrmz";
+    private static final byte[] MAGIC = { 'C', 'C', 'R', 'Z' };
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = MAGIC.length + 2;
+    private static final int TRAILER_SIZE = 8 + 4 + 4 + MAGIC.length;
+    private static final int BLOCK_SIZE = 4 << 20;
+    private static final int BLOCKS_IN_FLIGHT_PER_THREAD = 2;
+
+    private BackupArchive() {
+    }
+
+    static BackupResult write(Path source, Path archive, String name, int threads, BackupProgress progress)
+            throws IOException {
+        long start = System.nanoTime();
+        List<Path> files = BackupStore.listFiles(source);
+        List<Entry> entries = new ArrayList<>(files.size());
+        long totalBytes = 0;
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.add(new Entry(BackupStore.relativeName(source, file), attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+            totalBytes += attributes.size();
+        }
+
+        Files.createDirectories(archive.getParent());
+        Path tmp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Compressor> compressors = ThreadLocal.withInitial(() -> new Compressor(deflaters));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        long compressedBytes = 0;
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.put(MAGIC).putShort(VERSION).flip();
+            writeFully(out, header);
+
+            // Blocks are submitted in archive order and written as the oldest one completes
+            Deque<Future<Block>> inFlight = new ArrayDeque<>();
+            int window = Math.max(1, threads) * BLOCKS_IN_FLIGHT_PER_THREAD;
+            long bytesDone = 0;
+            int filesDone = 0;
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                Entry entry = entries.get(i);
+                for (long position = 0; position < entry.size; position += BLOCK_SIZE) {
+                    long offset = position;
+                    int length = (int) Math.min(BLOCK_SIZE, entry.size - position);
+                    if (inFlight.size() == window) {
+                        compressedBytes += append(out, inFlight.poll());
+                    }
+                    inFlight.add(executor.submit(() -> compressors.get().compress(file, entry, offset, length)));
+                }
+                // Reported once the file's last block is queued, so at most one window ahead of the writer
+                bytesDone += entry.size;
+                progress.update(++filesDone, files.size(), bytesDone, totalBytes);
+            }
+            while (!inFlight.isEmpty()) {
+                compressedBytes += append(out, inFlight.poll());
+            }
+
+            long indexOffset = out.position();
+            ByteBuffer index = encodeIndex(entries).toBuffer();
+            CRC32 crc = new CRC32();
+            crc.update(index.duplicate());
+            int indexLength = index.remaining();
+            writeFully(out, index);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            trailer.putLong(indexOffset).putInt(indexLength).putInt((int) crc.getValue()).put(MAGIC).flip();
+            writeFully(out, trailer);
+            out.force(true);
+        } finally {
+            executor.shutdownNow();
+            deflaters.forEach(Deflater::end);
+        }
+        Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new BackupResult(name, entries.size(), 0, totalBytes, compressedBytes, System.nanoTime() - start);
+    }
+
+    /**
+     * Reads only the trailer and index.
+     */
+    static Index readIndex(Path archive) throws IOException {
+        try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+            return readIndex(in, archive);
+        }
+    }
+
+    /**
+     * Decompresses every file under target, one file per task on a pool of the given size.
+     * Each block is checked against its CRC and each file against its recorded size.
+     */
+    static void extract(Path archive, Path target, int threads) throws IOException {
+        Path root = target.toAbsolutePath().normalize();
+        Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+        ThreadLocal<Extractor> extractors = ThreadLocal.withInitial(() -> new Extractor(inflaters));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try (FileChannel in = FileChannel.open(archive, StandardOpenOption.READ)) {
+            // Positional reads on one shared channel; each file's blocks start where the previous file's end
+            List<Future<?>> pending = new ArrayList<>();
+            long position = HEADER_SIZE;
+            for (Entry entry : readIndex(in, archive).entries) {
+                Path file = root.resolve(entry.path).normalize();
+                if (!file.startsWith(root)) {
+                    throw new IOException("Archive entry outside the restore directory: " + entry.path);
+                }
+                long start = position;
+                pending.add(executor.submit(() -> {
+                    extractors.get().extract(in, archive, entry, start, file);
+                    return null;
+                }));
+                position += Arrays.stream(entry.blockLengths).sum();
+            }
+            for (Future<?> file : pending) {
+                BackupStore.await(file);
+            }
+        } finally {
+            executor.shutdownNow();
+            inflaters.forEach(Inflater::end);
+        }
+    }
+
+    private static Index readIndex(FileChannel in, Path archive) throws IOException {
+        long size = in.size();
+        if (size < HEADER_SIZE + TRAILER_SIZE) {
+            throw new IOException("Not a backup archive: " + archive.getFileName());
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        readFully(in, trailer, size - TRAILER_SIZE);
+        trailer.flip();
+        long indexOffset = trailer.getLong();
+        int indexLength = trailer.getInt();
+        int indexCrc = trailer.getInt();
+        for (byte b : MAGIC) {
+            if (trailer.get() != b) {
+                throw new IOException("Not a backup archive: " + archive.getFileName());
+            }
+        }
+        if (indexOffset < HEADER_SIZE || indexLength < 0 || indexOffset + indexLength != size - TRAILER_SIZE) {
+            throw new IOException("Corrupt backup archive index: " + archive.getFileName());
+        }
+
+        ByteBuffer index = ByteBuffer.allocate(indexLength);
+        readFully(in, index, indexOffset);
+        index.flip();
+        CRC32 crc = new CRC32();
+        crc.update(index.duplicate());
+        if ((int) crc.getValue() != indexCrc) {
+            throw new IOException("Checksum mismatch in backup archive index: " + archive.getFileName());
+        }
+        try {
+            return decodeIndex(index);
+        } catch (FileImportException | BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Corrupt backup archive index: " + archive.getFileName(), e);
+        }
+    }
+
+    private static SnapshotFormat.Sink encodeIndex(List<Entry> entries) {
+        SnapshotFormat.Sink index = new SnapshotFormat.Sink();
+        index.putVarlong(entries.size());
+        for (Entry entry : entries) {
+            index.putString(entry.path);
+            index.putVarlong(entry.size);
+            index.putZigzag(entry.modified);
+            index.putVarlong(entry.blockLengths.length);
+            for (int b = 0; b < entry.blockLengths.length; b++) {
+                index.putVarlong(entry.blockLengths[b]);
+                index.putVarlong(entry.blockCrcs[b] & 0xFFFFFFFFL);
+            }
+        }
+        return index;
+    }
+
+    private static Index decodeIndex(ByteBuffer in) throws FileImportException {
+        int count = SnapshotFormat.readVarint(in);
+        List<Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Entry entry = new Entry(SnapshotFormat.readString(in), SnapshotFormat.readVarlong(in),
+                    SnapshotFormat.readZigzag(in));
+            if (SnapshotFormat.readVarint(in) != entry.blockLengths.length) {
+                throw new FileImportException("Block count does not match size of " + entry.path);
+            }
+            for (int b = 0; b < entry.blockLengths.length; b++) {
+                entry.setBlock(b, SnapshotFormat.readVarlong(in), (int) SnapshotFormat.readVarlong(in));
+            }
+            entries.add(entry);
+        }
+        return new Index(entries);
+    }
+
+    // Appends a finished block and records it in its file's entry
+    private static long append(FileChannel out, Future<Block> pending) throws IOException {
+        Block block = BackupStore.await(pending);
+        writeFully(out, ByteBuffer.wrap(block.data, 0, block.length));
+        block.entry.setBlock((int) (block.offset / BLOCK_SIZE), block.length, block.crc);
+        return block.length;
+    }
+
+    private static int inflate(Inflater inflater, byte[] plain, int expected) throws IOException {
+        int inflated = 0;
+        try {
+            while (inflated < expected && !inflater.finished()) {
+                int n = inflater.inflate(plain, inflated, expected - inflated);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt compressed block: " + e.getMessage(), e);
+        }
+        return inflated;
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = in.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of backup archive");
+            }
+            position += n;
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    /**
+     * The archive's file list, with sizes before and after compression.
+     */
+    static final class Index {
+        final List<Entry> entries;
+
+        Index(List<Entry> entries) {
+            this.entries = Collections.unmodifiableList(entries);
+        }
+
+        long totalBytes() {
+            return entries.stream().mapToLong(e -> e.size).sum();
+        }
+
+        long compressedBytes() {
+            return entries.stream().flatMapToLong(e -> Arrays.stream(e.blockLengths)).sum();
+        }
+    }
+
+    static final class Entry {
+        final String path;
+        final long size;
+        final long modified;
+        final long[] blockLengths;
+        final int[] blockCrcs;
+
+        Entry(String path, long size, long modified) {
+            int blocks = (int) ((size + BLOCK_SIZE - 1) / BLOCK_SIZE);
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+            this.blockLengths = new long[blocks];
+            this.blockCrcs = new int[blocks];
+        }
+
+        void setBlock(int block, long length, int crc) {
+            blockLengths[block] = length;
+            blockCrcs[block] = crc;
+        }
+    }
+
+    /**
+     * Per-worker input buffer and deflater; compressed output is a fresh array per block
+     * because it is held until the writer gets to it.
+     */
+    private static final class Compressor {
+        private final byte[] input = new byte[BLOCK_SIZE];
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+
+        Compressor(Queue<Deflater> created) {
+            created.add(deflater);
+        }
+
+        Block compress(Path file, Entry entry, long offset, int length) throws IOException {
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.wrap(input, 0, length);
+                for (long position = offset; buffer.hasRemaining(); ) {
+                    int n = in.read(buffer, position);
+                    if (n < 0) {
+                        throw new IOException(file.getFileName() + " shrank during backup");
+                    }
+                    position += n;
+                }
+            }
+            crc.reset();
+            crc.update(input, 0, length);
+
+            deflater.reset();
+            deflater.setInput(input, 0, length);
+            deflater.finish();
+            byte[] output = new byte[length / 2 + 64];
+            int size = 0;
+            while (!deflater.finished()) {
+                if (size == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                size += deflater.deflate(output, size, output.length - size);
+            }
+            return new Block(entry, offset, output, size, (int) crc.getValue());
+        }
+    }
+
+    /**
+     * Per-worker inflater and buffers for extracting files.
+     */
+    private static final class Extractor {
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] plain = new byte[BLOCK_SIZE];
+        private final CRC32 crc = new CRC32();
+        private byte[] compressed = new byte[0];
+
+        Extractor(Queue<Inflater> created) {
+            created.add(inflater);
+        }
+
+        void extract(FileChannel in, Path archive, Entry entry, long position, Path file) throws IOException {
+            Files.createDirectories(file.getParent());
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long remaining = entry.size;
+                for (int b = 0; b < entry.blockLengths.length; b++) {
+                    int length = (int) entry.blockLengths[b];
+                    if (compressed.length < length) {
+                        compressed = new byte[length];
+                    }
+                    readFully(in, ByteBuffer.wrap(compressed, 0, length), position);
+                    position += length;
+
+                    int expected = (int) Math.min(BLOCK_SIZE, remaining);
+                    inflater.reset();
+                    inflater.setInput(compressed, 0, length);
+                    int inflated = inflate(inflater, plain, expected);
+                    crc.reset();
+                    crc.update(plain, 0, inflated);
+                    if (inflated != expected || !inflater.finished() || (int) crc.getValue() != entry.blockCrcs[b]) {
+                        throw new IOException("Corrupt block " + b + " of " + entry.path + " in "
+                                + archive.getFileName());
+                    }
+                    writeFully(out, ByteBuffer.wrap(plain, 0, inflated));
+                    remaining -= inflated;
+                }
+            }
+        }
+    }
+
+    private static final class Block {
+        final Entry entry;
+        final long offset;
+        final byte[] data;
+        final int length;
+        final int crc;
+
+        Block(Entry entry, long offset, byte[] data, int length, int crc) {
+            this.entry = entry;
+            this.offset = offset;
+            this.data = data;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+
+// src/edu/ccrm/io/BackupProgress.java
+package edu.ccrm.io;
+
+/**
+ * Receives progress while a backup runs. It is called once per file from the backup's
+ * worker threads, so implementations must be thread-safe and should return quickly.
+ */
+@FunctionalInterface
+public interface BackupProgress {
+    BackupProgress NONE = (filesDone, fileCount, bytesDone, totalBytes) -> { };
+    
+    void update(int filesDone, int fileCount, long bytesDone, long totalBytes);
+}
@@ -0,0 +1,39 @@
+
+// src/edu/ccrm/io/BackupResult.java
+package edu.ccrm.io;
+
+/**
+ * Totals counted while a backup ran, so callers need not walk the backup afterwards.
+ */
+public final class BackupResult {
+    private final String name;
+    private final int fileCount;
+    private final int unchangedFiles;
+    private final long totalBytes;
+    private final long storedBytes;
+    private final long elapsedNanos;
+    
+    BackupResult(String name, int fileCount, int unchangedFiles, long totalBytes, long storedBytes, long elapsedNanos) {
+        this.name = name;
+        this.fileCount = fileCount;
+        this.unchangedFiles = unchangedFiles;
+        this.totalBytes = totalBytes;
+        this.storedBytes = storedBytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public String getName() { return name; }
+    public int getFileCount() { return fileCount; }
+    // Files carried over from the previous backup without being read
+    public int getUnchangedFiles() { return unchangedFiles; }
+    public long getTotalBytes() { return totalBytes; }
+    // Bytes of chunks that were new to the store
+    public long getStoredBytes() { return storedBytes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d files, %d bytes (%d unchanged files, %d bytes of new data stored) in %d ms",
+                name, fileCount, totalBytes, unchangedFiles, storedBytes, elapsedNanos / 1_000_000);
+    }
+}
@@ -0,0 +1,398 @@
+
+// src/edu/ccrm/io/BackupStore.java
+package edu.ccrm.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deduplicating backup store. Files are cut into fixed-size chunks that are stored once
+ * under their SHA-256 hash, and each backup is a small manifest listing every file's
+ * chunks, so a backup only adds the chunks that changed since any earlier one.
+ *
+ * <pre>
+ * chunks/ab/abcdef...        chunk bytes, named by the hex SHA-256 of their content
+ * manifests/NAME.manifest    "CCRM-BACKUP 1 createdMillis", then one line per file:
+ *                            size TAB modifiedMillis TAB hash,hash,... TAB relative/path
+ * manifests/LATEST           name of the newest backup
+ * </pre>
+ * A file whose size and modification time match the newest manifest is not read again;
+ * its chunk list is carried over. The match is only trusted for files modified before that
+ * manifest was started, since a write in the same clock tick would leave mtime unchanged.
+ */
+class BackupStore {
+    static final int CHUNK_SIZE = 4 << 20;
+    private static final String HEADER = "CCRM-BACKUP";
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".manifest";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path chunks;
+    private final Path manifests;
+
+    BackupStore(Path root) {
+        this.chunks = root.resolve("chunks");
+        this.manifests = root.resolve("manifests");
+    }
+
+    /**
+     * Backs up every regular file under source, hashing changed files on a pool of the
+     * given size. Totals are counted as files complete and reported to progress.
+     */
+    synchronized BackupResult backup(Path source, String name, int threads, BackupProgress progress)
+            throws IOException {
+        Path manifestPath = manifestPath(name);
+        if (Files.exists(manifestPath)) {
+            throw new IOException("Backup already exists: " + name);
+        }
+        Files.createDirectories(chunks);
+
+        long start = System.nanoTime();
+        long started = System.currentTimeMillis();
+        Manifest previous = latest();
+        Map<String, Entry> unchanged = previous == null ? Collections.emptyMap()
+                : previous.entries.stream()
+                        .filter(e -> e.modified < previous.created)
+                        .collect(Collectors.toMap(e -> e.path, e -> e));
+
+        List<Path> files = listFiles(source);
+        List<Entry> entries = new ArrayList<>(files.size());
+        long totalBytes = 0;
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            entries.add(new Entry(relativeName(source, file), attributes.size(),
+                    attributes.lastModifiedTime().toMillis()));
+            totalBytes += attributes.size();
+        }
+
+        // One chunk-sized direct buffer per worker; claimed stops two workers storing the same new chunk
+        ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHUNK_SIZE));
+        Set<String> claimed = ConcurrentHashMap.newKeySet();
+        AtomicInteger filesDone = new AtomicInteger();
+        AtomicInteger unchangedFiles = new AtomicInteger();
+        AtomicLong bytesDone = new AtomicLong();
+        LongAdder stored = new LongAdder();
+        long total = totalBytes;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> pending = new ArrayList<>(files.size());
+            for (int i = 0; i < files.size(); i++) {
+                Path file = files.get(i);
+                Entry entry = entries.get(i);
+                Entry old = unchanged.get(entry.path);
+                if (old != null && old.size == entry.size && old.modified == entry.modified) {
+                    // Carried over on this thread: handing it to the pool would cost more than the copy
+                    entry.chunks.addAll(old.chunks);
+                    unchangedFiles.incrementAndGet();
+                    progress.update(filesDone.incrementAndGet(), files.size(), bytesDone.addAndGet(entry.size), total);
+                    continue;
+                }
+                pending.add(executor.submit(() -> {
+                    stored.add(storeChunks(file, entry, buffers.get(), claimed));
+                    progress.update(filesDone.incrementAndGet(), files.size(), bytesDone.addAndGet(entry.size), total);
+                    return null;
+                }));
+            }
+            for (Future<?> file : pending) {
+                await(file);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        writeManifest(manifestPath, new Manifest(started, entries));
+        writeAtomically(manifests.resolve("LATEST"), Collections.singletonList(name));
+        return new BackupResult(name, entries.size(), unchangedFiles.get(), totalBytes, stored.sum(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Rebuilds the files of a backup under target, one file per task on a pool of the given
+     * size. Every chunk is hashed as it is copied and every file's length checked against
+     * the manifest, so a damaged store fails the restore rather than producing wrong data.
+     */
+    void restore(String name, Path target, int threads) throws IOException {
+        Path root = target.toAbsolutePath().normalize();
+        List<Entry> entries = readManifest(name).entries;
+        ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHUNK_SIZE));
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> pending = new ArrayList<>(entries.size());
+            for (Entry entry : entries) {
+                Path file = root.resolve(entry.path).normalize();
+                if (!file.startsWith(root)) {
+                    throw new IOException("Manifest entry outside the restore directory: " + entry.path);
+                }
+                pending.add(executor.submit(() -> {
+                    restoreFile(entry, file, buffers.get());
+                    return null;
+                }));
+            }
+            for (Future<?> file : pending) {
+                await(file);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    boolean hasBackup(String name) {
+        return Files.exists(manifestPath(name));
+    }
+
+    // Total size of the files in the backup, before deduplication
+    long logicalSize(String name) throws IOException {
+        return readManifest(name).entries.stream().mapToLong(e -> e.size).sum();
+    }
+
+    // The bytes that were hashed are the bytes written, so a chunk always matches its name
+    private long storeChunks(Path file, Entry entry, ByteBuffer buffer, Set<String> claimed) throws IOException {
+        MessageDigest sha = sha256();
+        long added = 0;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Only the size seen when the file was listed is read, so a file that is
+            // appended to meanwhile (the enrollment journal) is captured as a consistent prefix
+            for (long remaining = entry.size; remaining > 0; ) {
+                buffer.clear();
+                buffer.limit((int) Math.min(CHUNK_SIZE, remaining));
+                while (buffer.hasRemaining()) {
+                    if (in.read(buffer) < 0) {
+                        throw new IOException(file.getFileName() + " shrank during backup");
+                    }
+                }
+                buffer.flip();
+                remaining -= buffer.remaining();
+
+                sha.update(buffer.duplicate());
+                String hash = hex(sha.digest());
+                Path chunk = chunkPath(hash);
+                if (claimed.add(hash) && !Files.exists(chunk)) {
+                    Files.createDirectories(chunk.getParent());
+                    Path tmp = chunk.resolveSibling(hash + ".tmp");
+                    try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        while (buffer.hasRemaining()) {
+                            added += out.write(buffer);
+                        }
+                    }
+                    Files.move(tmp, chunk, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                entry.chunks.add(hash);
+            }
+        }
+        return added;
+    }
+
+    // Chunks go through the buffer rather than transferTo so they can be hashed on the way
+    private void restoreFile(Entry entry, Path file, ByteBuffer buffer) throws IOException {
+        MessageDigest sha = sha256();
+        long written = 0;
+        Files.createDirectories(file.getParent());
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (String hash : entry.chunks) {
+                buffer.clear();
+                try (FileChannel in = FileChannel.open(chunkPath(hash), StandardOpenOption.READ)) {
+                    // A chunk longer than the buffer is cut short here and then fails its hash
+                    while (buffer.hasRemaining()) {
+                        if (in.read(buffer) < 0) {
+                            break;
+                        }
+                    }
+                }
+                buffer.flip();
+                sha.update(buffer.duplicate());
+                if (!hex(sha.digest()).equals(hash)) {
+                    throw new IOException("Corrupt chunk " + hash + " in " + entry.path);
+                }
+                written += buffer.remaining();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+            }
+        }
+        if (written != entry.size) {
+            throw new IOException("Restored " + written + " of " + entry.size + " bytes of " + entry.path);
+        }
+    }
+
+    private Manifest latest() throws IOException {
+        Path pointer = manifests.resolve("LATEST");
+        if (!Files.exists(pointer)) {
+            return null;
+        }
+        String name = new String(Files.readAllBytes(pointer), StandardCharsets.UTF_8).trim();
+        return hasBackup(name) ? readManifest(name) : null;
+    }
+
+    private Manifest readManifest(String name) throws IOException {
+        Path path = manifestPath(name);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException("No such backup: " + name);
+        }
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String[] header = String.valueOf(reader.readLine()).split(" ");
+            if (header.length != 3 || !header[0].equals(HEADER) || !header[1].equals(String.valueOf(VERSION))) {
+                throw new IOException("Not a backup manifest: " + path.getFileName());
+            }
+            List<Entry> entries = new ArrayList<>();
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4) {
+                    throw new IOException("Malformed line in backup manifest " + path.getFileName());
+                }
+                Entry entry = new Entry(fields[3], Long.parseLong(fields[0]), Long.parseLong(fields[1]));
+                if (!fields[2].isEmpty()) {
+                    Collections.addAll(entry.chunks, fields[2].split(","));
+                }
+                entries.add(entry);
+            }
+            return new Manifest(Long.parseLong(header[2]), entries);
+        } catch (NumberFormatException e) {
+            throw new IOException("Malformed backup manifest " + path.getFileName(), e);
+        }
+    }
+
+    private void writeManifest(Path path, Manifest manifest) throws IOException {
+        List<String> lines = new ArrayList<>(manifest.entries.size() + 1);
+        lines.add(HEADER + " " + VERSION + " " + manifest.created);
+        for (Entry entry : manifest.entries) {
+            lines.add(entry.size + "\t" + entry.modified + "\t" + String.join(",", entry.chunks) + "\t" + entry.path);
+        }
+        writeAtomically(path, lines);
+    }
+
+    private void writeAtomically(Path path, List<String> lines) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path manifestPath(String name) {
+        return manifests.resolve(checkName(name) + SUFFIX);
+    }
+
+    // Backup names become file names, so they must not escape the backup directory
+    static String checkName(String name) {
+        if (name.isEmpty() || name.contains("/") || name.contains("\\") || name.startsWith(".")) {
+            throw new IllegalArgumentException("Invalid backup name: " + name);
+        }
+        return name;
+    }
+
+    // Waits for a worker, rethrowing its IOException as is
+    static <T> T await(Future<T> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Backup interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    // Two-character fan-out keeps directories small once the store holds many chunks
+    private Path chunkPath(String hash) {
+        return chunks.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    // Sorted so manifests list files in a stable order; writer temp files are skipped
+    static List<Path> listFiles(Path source) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(p -> !p.getFileName().toString().endsWith(".tmp"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static String relativeName(Path root, Path file) {
+        List<String> parts = new ArrayList<>();
+        for (Path part : root.relativize(file)) {
+            parts.add(part.toString());
+        }
+        return String.join("/", parts);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[2 * i + 1] = HEX[bytes[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static final class Manifest {
+        final long created;
+        final List<Entry> entries;
+
+        Manifest(long created, List<Entry> entries) {
+            this.created = created;
+            this.entries = entries;
+        }
+    }
+
+    private static final class Entry {
+        final String path;
+        final long size;
+        final long modified;
+        final List<String> chunks = new ArrayList<>();
+
+        Entry(String path, long size, long modified) {
+            this.path = path;
+            this.size = size;
+            this.modified = modified;
+        }
+    }
+}
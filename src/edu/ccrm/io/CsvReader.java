@@ -0,0 +1,207 @@
+
+// src/edu/ccrm/io/CsvReader.java
+package edu.ccrm.io;
+
+import edu.ccrm.exception.FileImportException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Streaming reader for the comma-separated files written by FileService.
+ *
+ * Bytes are pushed in with feed() in whatever chunks the caller has; each complete line is
+ * split on commas in place (no regex, no String[] per line) and handed to the handler as a
+ * reusable CsvRecord. Memory use is bounded by the longest line, not by the file size.
+ * Blank lines are skipped but still counted, so error messages keep real line numbers.
+ */
+class CsvReader {
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    interface RowHandler {
+        void handle(CsvRecord record) throws Exception;
+    }
+
+    private final RowHandler handler;
+    private final CsvRecord record = new CsvRecord();
+    private byte[] line = new byte[256];
+    private int lineLength;
+    private long lineNumber;
+
+    CsvReader(RowHandler handler) {
+        this(handler, 0);
+    }
+
+    // linesBefore lets a reader that starts mid-file report file-relative line numbers
+    CsvReader(RowHandler handler, long linesBefore) {
+        this.handler = handler;
+        this.lineNumber = linesBefore;
+    }
+
+    // Reads the whole file through a FileChannel in fixed-size chunks
+    static long read(Path path, RowHandler handler) throws IOException, FileImportException {
+        CsvReader reader = new CsvReader(handler);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                reader.feed(buffer);
+                buffer.clear();
+            }
+        }
+        reader.finish();
+        return reader.getLineNumber();
+    }
+
+    void feed(ByteBuffer bytes) throws FileImportException {
+        while (bytes.hasRemaining()) {
+            byte b = bytes.get();
+            if (b == '\n') {
+                endLine();
+            } else {
+                if (lineLength == line.length) {
+                    line = Arrays.copyOf(line, lineLength * 2);
+                }
+                line[lineLength++] = b;
+            }
+        }
+    }
+
+    // Flushes a final line that has no trailing newline
+    void finish() throws FileImportException {
+        if (lineLength > 0) {
+            endLine();
+        }
+    }
+
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    private void endLine() throws FileImportException {
+        lineNumber++;
+        int length = lineLength;
+        lineLength = 0;
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        if (isBlank(line, length)) {
+            return;
+        }
+        record.reset(line, length);
+        try {
+            handler.handle(record);
+        } catch (Exception e) {
+            throw new FileImportException("Error parsing line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static boolean isBlank(byte[] bytes, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((bytes[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One parsed line. Field boundaries point into the reader's line buffer, so a record
+     * is only valid inside the handler call that received it.
+     */
+    static final class CsvRecord {
+        private byte[] bytes;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int fieldCount;
+
+        // Commas are single-byte in UTF-8, so splitting on the raw bytes is safe
+        void reset(byte[] bytes, int length) {
+            this.bytes = bytes;
+            fieldCount = 0;
+            int start = 0;
+            for (int i = 0; i <= length; i++) {
+                if (i == length || bytes[i] == ',') {
+                    if (fieldCount == starts.length) {
+                        starts = Arrays.copyOf(starts, fieldCount * 2);
+                        ends = Arrays.copyOf(ends, fieldCount * 2);
+                    }
+                    starts[fieldCount] = start;
+                    ends[fieldCount] = i;
+                    fieldCount++;
+                    start = i + 1;
+                }
+            }
+            // Trailing empty fields are dropped, as String.split(",") did, so "a,b,,," has
+            // two fields and still fails a minimum-field check
+            while (fieldCount > 0 && ends[fieldCount - 1] == starts[fieldCount - 1]) {
+                fieldCount--;
+            }
+        }
+
+        int fieldCount() {
+            return fieldCount;
+        }
+
+        String field(int index) {
+            checkIndex(index);
+            return new String(bytes, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+        }
+
+        boolean isEmpty(int index) {
+            checkIndex(index);
+            return ends[index] == starts[index];
+        }
+
+        int intField(int index) {
+            checkIndex(index);
+            int pos = starts[index];
+            int end = ends[index];
+            boolean negative = pos < end && bytes[pos] == '-';
+            if (pos < end && (bytes[pos] == '-' || bytes[pos] == '+')) {
+                pos++;
+            }
+            if (pos == end) {
+                throw new NumberFormatException("For input string: \"" + field(index) + "\"");
+            }
+            long value = 0;
+            for (; pos < end; pos++) {
+                int digit = bytes[pos] - '0';
+                if (digit < 0 || digit > 9) {
+                    throw new NumberFormatException("For input string: \"" + field(index) + "\"");
+                }
+                value = value * 10 + digit;
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new NumberFormatException("For input string: \"" + field(index) + "\"");
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new NumberFormatException("For input string: \"" + field(index) + "\"");
+            }
+            return (int) value;
+        }
+
+        // Same rule as Boolean.parseBoolean: "true" in any case, anything else is false
+        boolean booleanField(int index) {
+            checkIndex(index);
+            if (ends[index] - starts[index] != 4) {
+                return false;
+            }
+            int pos = starts[index];
+            return (bytes[pos] | 0x20) == 't' && (bytes[pos + 1] | 0x20) == 'r'
+                    && (bytes[pos + 2] | 0x20) == 'u' && (bytes[pos + 3] | 0x20) == 'e';
+        }
+
+        private void checkIndex(int index) {
+            if (index < 0 || index >= fieldCount) {
+                throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+
+// src/edu/ccrm/io/Dataset.java
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+import java.util.List;
+
+/**
+ * Everything a binary snapshot holds. Students carry their enrollments and grades.
+ */
+public class Dataset {
+    private final List<Instructor> instructors;
+    private final List<Course> courses;
+    private final List<Student> students;
+    
+    public Dataset(List<Instructor> instructors, List<Course> courses, List<Student> students) {
+        this.instructors = instructors;
+        this.courses = courses;
+        this.students = students;
+    }
+    
+    public List<Instructor> getInstructors() { return instructors; }
+    public List<Course> getCourses() { return courses; }
+    public List<Student> getStudents() { return students; }
+}
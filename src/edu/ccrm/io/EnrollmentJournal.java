@@ -0,0 +1,499 @@
+
+// src/edu/ccrm/io/EnrollmentJournal.java
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.CourseService;
+import edu.ccrm.service.EnrollmentListener;
+import edu.ccrm.service.EnrollmentLog;
+import edu.ccrm.service.StudentService;
+import edu.ccrm.util.CourseCode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead log of enrollment changes.
+ *
+ * Every enroll, unenroll and grade change becomes one checksummed record in enrollments.wal,
+ * appended before StudentService applies the change (see EnrollmentLog). Syncs are
+ * group-committed: the first caller to find records pending writes and fsyncs all of them
+ * at once while later callers wait for that flush instead of issuing their own.
+ * Every checkpointInterval records the current enrollment state is written to
+ * enrollments.snapshot and the log records it covers are dropped, which keeps replay time
+ * bounded.
+ *
+ * Replay is idempotent (duplicate enrollments are skipped, grades are overwritten), so a
+ * record that ends up both in a snapshot and in the log after it is harmless.
+ */
+public class EnrollmentJournal implements EnrollmentLog, EnrollmentListener, Closeable {
+    public static final String LOG_FILE = "enrollments.wal";
+    public static final String SNAPSHOT_FILE = "enrollments.snapshot";
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 50_000;
+
+    private static final byte ENROLL = 1;
+    private static final byte UNENROLL = 2;
+    private static final byte GRADE = 3;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final Path logPath;
+    private final Path snapshotPath;
+    private final Supplier<? extends Collection<Student>> students;
+    private final int checkpointInterval;
+
+    // Guards the buffers, the sequence numbers and the log channel, which a checkpoint
+    // replaces; the flush leader uses the channel outside the lock while flushing is set
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private FileChannel log;
+    private ByteBuffer pending = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+    private long appendedSeq;
+    private long durableSeq;
+    private boolean flushing;
+    private volatile int recordsSinceCheckpoint;
+    private IOException failure;
+    private volatile boolean replaying;
+
+    public EnrollmentJournal(Path directory, Supplier<? extends Collection<Student>> students) throws IOException {
+        this(directory, students, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public EnrollmentJournal(Path directory, Supplier<? extends Collection<Student>> students,
+                             int checkpointInterval) throws IOException {
+        this.logPath = directory.resolve(LOG_FILE);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.students = students;
+        this.checkpointInterval = checkpointInterval;
+        this.log = FileChannel.open(logPath, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        // Drop a torn record left by a crash mid-write, then append after the last good one
+        long validLength = readRecords(logPath, null, null, null);
+        if (validLength < log.size()) {
+            log.truncate(validLength);
+        }
+        log.position(validLength);
+    }
+
+    /**
+     * Applies the snapshot and then the log to the services. Records naming students or
+     * courses that are not loaded are skipped; inactive ones count as loaded. Must not run concurrently with live
+     * enrollments, since changes made during replay are not journaled.
+     */
+    public int replay(StudentService studentService, CourseService courseService) throws IOException {
+        replaying = true;
+        try {
+            int[] applied = new int[1];
+            readRecords(snapshotPath, studentService, courseService, applied);
+            readRecords(logPath, studentService, courseService, applied);
+            return applied[0];
+        } finally {
+            replaying = false;
+        }
+    }
+
+    @Override
+    public void appendEnrolled(Enrollment enrollment) throws IOException {
+        append(ENROLL, enrollment, enrollment.getGrade());
+    }
+
+    @Override
+    public void appendUnenrolled(Enrollment enrollment) throws IOException {
+        append(UNENROLL, enrollment, null);
+    }
+
+    @Override
+    public void appendGraded(Enrollment enrollment, Grade grade) throws IOException {
+        append(GRADE, enrollment, grade);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        if (replaying) {
+            return;
+        }
+        long seq;
+        lock.lock();
+        try {
+            seq = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        checkpointIfDue();
+    }
+
+    // A reloaded dataset becomes the new baseline; older log records no longer apply to it
+    @Override
+    public void reloaded(Collection<Student> reloadedStudents) {
+        if (replaying) {
+            return;
+        }
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.err.println("Error writing enrollment journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the full enrollment state to the snapshot file and drops the log records it
+     * covers. Must not be called while holding a student's lock.
+     *
+     * Records are appended before their change is applied, so a record already in the log
+     * may belong to a change still being applied. The snapshot reads each student under
+     * its lock, which waits for such a change to finish. Records appended after the log
+     * was flushed here may or may not be in the snapshot, so they are kept.
+     */
+    public void checkpoint() throws IOException {
+        checkpointLock.lock();
+        try {
+            long covered = flushForCheckpoint();
+            writeSnapshot(students.get());
+            dropLogPrefix(covered);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            if (failure == null && pending.position() > 0) {
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    log.write(pending);
+                }
+                pending.clear();
+                log.force(false);
+            }
+            log.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Queues the record for the next flush; fails once the log is unusable
+    private void append(byte type, Enrollment enrollment, Grade grade) throws IOException {
+        if (replaying) {
+            return;
+        }
+        byte[] record = encode(type, enrollment, grade);
+        lock.lock();
+        try {
+            checkFailure();
+            if (pending.remaining() < record.length) {
+                pending = grow(pending, record.length);
+            }
+            pending.put(record);
+            appendedSeq++;
+            recordsSinceCheckpoint++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitDurable(long seq) throws IOException {
+        lock.lock();
+        try {
+            while (durableSeq < seq) {
+                checkFailure();
+                if (flushing) {
+                    flushed.awaitUninterruptibly();
+                    continue;
+                }
+                // Become the leader for everything appended so far
+                flushing = true;
+                ByteBuffer batch = pending;
+                long batchSeq = appendedSeq;
+                pending = spare;
+                lock.unlock();
+                try {
+                    batch.flip();
+                    while (batch.hasRemaining()) {
+                        log.write(batch);
+                    }
+                    log.force(false);
+                } catch (IOException e) {
+                    failure = e;
+                    throw e;
+                } finally {
+                    lock.lock();
+                    batch.clear();
+                    spare = batch;
+                    flushing = false;
+                    if (failure == null) {
+                        durableSeq = batchSeq;
+                    }
+                    flushed.signalAll();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Only one caller checkpoints; the others carry on rather than queue behind it
+    private void checkpointIfDue() throws IOException {
+        if (recordsSinceCheckpoint < checkpointInterval || !checkpointLock.tryLock()) {
+            return;
+        }
+        try {
+            if (recordsSinceCheckpoint >= checkpointInterval) {
+                checkpoint();
+            }
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    // Makes everything appended so far durable and returns the log length that covers it
+    private long flushForCheckpoint() throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            checkFailure();
+            try {
+                pending.flip();
+                while (pending.hasRemaining()) {
+                    log.write(pending);
+                }
+                pending.clear();
+                log.force(false);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            durableSeq = appendedSeq;
+            recordsSinceCheckpoint = 0;
+            return log.position();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replaces the log with the records after the first covered bytes, through a renamed
+    // copy so a crash leaves either the old log or the new one
+    private void dropLogPrefix(long covered) throws IOException {
+        lock.lock();
+        try {
+            while (flushing) {
+                flushed.awaitUninterruptibly();
+            }
+            checkFailure();
+            Path tmp = logPath.resolveSibling(LOG_FILE + ".tmp");
+            try {
+                try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    long end = log.position();
+                    for (long position = covered; position < end; ) {
+                        position += log.transferTo(position, end - position, out);
+                    }
+                    out.force(true);
+                }
+                log.close();
+                Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log = FileChannel.open(logPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                log.position(log.size());
+                log.force(true);
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Enrollment journal is unusable after an earlier write failure", failure);
+        }
+    }
+
+    private void writeSnapshot(Collection<Student> all) throws IOException {
+        Path tmp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+            for (Student student : all) {
+                // Waits for a change whose record is already in the log to be applied
+                List<Enrollment> enrollments;
+                synchronized (student) {
+                    enrollments = student.getEnrollments();
+                }
+                for (Enrollment enrollment : enrollments) {
+                    byte[] record = encode(ENROLL, enrollment, enrollment.getGrade());
+                    if (buffer.remaining() < record.length) {
+                        buffer.flip();
+                        while (buffer.hasRemaining()) {
+                            out.write(buffer);
+                        }
+                        buffer.clear();
+                        if (buffer.remaining() < record.length) {
+                            buffer = grow(buffer, record.length);
+                        }
+                    }
+                    buffer.put(record);
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+        Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /*
+     * Record layout: int bodyLength, body, int crc32(body).
+     * Body: byte type (1 enroll, 2 unenroll, 3 grade), short+UTF-8 student id, short+UTF-8 course code, byte semester,
+     * then for ENROLL an int epoch day and a grade byte, for GRADE a grade byte.
+     * Semester and grade bytes are ordinal + 1, with 0 meaning none.
+     */
+    private static byte[] encode(byte type, Enrollment enrollment, Grade grade) {
+        byte[] studentId = enrollment.getStudent().getId().getBytes(StandardCharsets.UTF_8);
+        byte[] code = enrollment.getCourse().getCode().getCode().getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 2 + studentId.length + 2 + code.length + 1
+                + (type == ENROLL ? 5 : type == GRADE ? 1 : 0);
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + bodyLength + 4);
+        buffer.putInt(bodyLength);
+        buffer.put(type);
+        buffer.putShort((short) studentId.length).put(studentId);
+        buffer.putShort((short) code.length).put(code);
+        Semester semester = enrollment.getCourse().getSemester();
+        buffer.put((byte) (semester == null ? 0 : semester.ordinal() + 1));
+        if (type == ENROLL) {
+            buffer.putInt((int) enrollment.getEnrollmentDate().toEpochDay());
+        }
+        if (type != UNENROLL) {
+            buffer.put((byte) (grade == null ? 0 : grade.ordinal() + 1));
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 4, bodyLength);
+        buffer.putInt((int) crc.getValue());
+        return buffer.array();
+    }
+
+    /*
+     * Walks the records in a file, applying them when services are given. Returns the length
+     * of the valid prefix; reading stops at the first truncated or corrupt record.
+     */
+    private static long readRecords(Path path, StudentService studentService, CourseService courseService,
+                                    int[] applied) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (data.remaining() >= 4) {
+                int start = data.position();
+                int bodyLength = data.getInt();
+                if (bodyLength <= 0 || data.remaining() < bodyLength + 4) {
+                    return start;
+                }
+                ByteBuffer body = data.slice();
+                body.limit(bodyLength);
+                crc.reset();
+                crc.update(body.duplicate());
+                data.position(data.position() + bodyLength);
+                if ((int) crc.getValue() != data.getInt()) {
+                    return start;
+                }
+                if (studentService != null && apply(body, studentService, courseService)) {
+                    applied[0]++;
+                }
+            }
+            return data.position();
+        }
+    }
+
+    private static boolean apply(ByteBuffer body, StudentService studentService, CourseService courseService) {
+        byte type = body.get();
+        String studentId = readString(body);
+        String code = readString(body);
+        Semester semester = decodeSemester(body.get());
+
+        // Deactivated students and courses keep their enrollments, so they are replayed too
+        Student student = studentService.getStudentByIdIncludingInactive(studentId);
+        Course course;
+        try {
+            course = courseService.getCourseIncludingInactive(CourseCode.of(code), semester);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (student == null || course == null) {
+            return false;
+        }
+
+        switch (type) {
+            case ENROLL:
+                LocalDate enrolledOn = LocalDate.ofEpochDay(body.getInt());
+                Grade grade = decodeGrade(body.get());
+                return studentService.restoreEnrollment(student, course, enrolledOn, grade) != null;
+            case UNENROLL:
+                studentService.restoreUnenrollment(student, course);
+                return true;
+            case GRADE:
+                Grade newGrade = decodeGrade(body.get());
+                Enrollment graded = student.getEnrollment(course.getCode(), semester);
+                if (graded == null) {
+                    return false;
+                }
+                studentService.assignGrade(graded, newGrade);
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Semester decodeSemester(byte value) {
+        return value == 0 ? null : Semester.values()[value - 1];
+    }
+
+    private static Grade decodeGrade(byte value) {
+        return value == 0 ? null : Grade.values()[value - 1];
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        bigger.put(buffer);
+        return bigger;
+    }
+}
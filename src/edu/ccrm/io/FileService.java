@@ -7,89 +7,205 @@ import edu.ccrm.domain.Student;
 import edu.ccrm.domain.Course;
 import edu.ccrm.domain.Instructor;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.service.EnrollmentRequest;
 import edu.ccrm.util.CourseCode;
 import edu.ccrm.exception.FileImportException;
+import edu.ccrm.metrics.LatencyHistogram;
+import edu.ccrm.metrics.Metrics;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class FileService {
+    // Backups are bound by disk rather than CPU, so a few workers are enough to keep it busy
+    private static final int BACKUP_THREADS = Math.min(8, Math.max(2, Runtime.getRuntime().availableProcessors()));
+    
+    // Timers cover failed calls too; the record counters only successful ones, which add
+    // their records once the whole file has been read or written
+    private static final LatencyHistogram IMPORT_TIMER = Metrics.timer("file.import");
+    private static final LatencyHistogram EXPORT_TIMER = Metrics.timer("file.export");
+    private static final LatencyHistogram SNAPSHOT_SAVE_TIMER = Metrics.timer("file.snapshot.save");
+    private static final LatencyHistogram SNAPSHOT_LOAD_TIMER = Metrics.timer("file.snapshot.load");
+    private static final LatencyHistogram BACKUP_TIMER = Metrics.timer("file.backup");
+    private static final LatencyHistogram ARCHIVE_TIMER = Metrics.timer("file.archive");
+    private static final LatencyHistogram RESTORE_TIMER = Metrics.timer("file.restore");
+    private static final LongAdder IMPORTED_RECORDS = Metrics.counter("file.import.records");
+    private static final LongAdder EXPORTED_RECORDS = Metrics.counter("file.export.records");
+    
     private final AppConfig config;
+    private final BackupStore backupStore;
     
     public FileService() {
         this.config = AppConfig.getInstance();
+        this.backupStore = new BackupStore(config.getBackupDirectory());
     }
     
     public void exportStudents(List<Student> students, String filename) throws IOException {
-        Path filePath = config.getDataDirectory().resolve(filename);
-        List<String> lines = students.stream()
-                .map(this::studentToCSV)
-                .collect(Collectors.toList());
-        
-        Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        long start = System.nanoTime();
+        try {
+            Path filePath = config.getDataDirectory().resolve(filename);
+            List<String> lines = students.stream()
+                    .map(this::studentToCSV)
+                    .collect(Collectors.toList());
+            
+            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            EXPORTED_RECORDS.add(lines.size());
+        } finally {
+            EXPORT_TIMER.recordSince(start);
+        }
     }
     
     public List<Student> importStudents(String filename) throws IOException, FileImportException {
-        Path filePath = config.getDataDirectory().resolve(filename);
-        if (!Files.exists(filePath)) {
-            throw new FileImportException("File not found: " + filename);
-        }
-        
         List<Student> students = new ArrayList<>();
-        List<String> lines = Files.readAllLines(filePath);
-        
-        for (int i = 0; i < lines.size(); i++) {
-            try {
-                String line = lines.get(i);
-                if (line.trim().isEmpty()) continue;
-                
-                Student student = studentFromCSV(line);
-                students.add(student);
-            } catch (Exception e) {
-                throw new FileImportException("Error parsing line " + (i + 1) + ": " + e.getMessage());
-            }
-        }
-        
+        streamStudents(filename, students::add);
         return students;
     }
     
+    // Streams students to the sink one line at a time; returns the number of lines read
+    public long streamStudents(String filename, Consumer<Student> sink) throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            Path filePath = resolveExisting(filename);
+            long[] imported = {0};
+            long lines = CsvReader.read(filePath, record -> {
+                sink.accept(studentFromCSV(record));
+                imported[0]++;
+            });
+            IMPORTED_RECORDS.add(imported[0]);
+            return lines;
+        } finally {
+            IMPORT_TIMER.recordSince(start);
+        }
+    }
+    
+    // Parses byte-range chunks of the file on all cores; results keep file order
+    public List<Student> importStudentsParallel(String filename) throws IOException, FileImportException {
+        return importStudentsParallel(filename, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public List<Student> importStudentsParallel(String filename, int parallelism) 
+            throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            Path filePath = resolveExisting(filename);
+            return countImported(ParallelCsvImporter.read(filePath, parallelism, this::studentFromCSV));
+        } finally {
+            IMPORT_TIMER.recordSince(start);
+        }
+    }
+    
     public void exportCourses(List<Course> courses, String filename) throws IOException {
-        Path filePath = config.getDataDirectory().resolve(filename);
-        List<String> lines = courses.stream()
-                .map(this::courseToCSV)
-                .collect(Collectors.toList());
-        
-        Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        long start = System.nanoTime();
+        try {
+            Path filePath = config.getDataDirectory().resolve(filename);
+            List<String> lines = courses.stream()
+                    .map(this::courseToCSV)
+                    .collect(Collectors.toList());
+            
+            Files.write(filePath, lines, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            EXPORTED_RECORDS.add(lines.size());
+        } finally {
+            EXPORT_TIMER.recordSince(start);
+        }
     }
     
     public List<Course> importCourses(String filename, List<Instructor> instructors) throws IOException, FileImportException {
+        List<Course> courses = new ArrayList<>();
+        streamCourses(filename, instructors, courses::add);
+        return courses;
+    }
+    
+    public long streamCourses(String filename, List<Instructor> instructors, Consumer<Course> sink) 
+            throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            Path filePath = resolveExisting(filename);
+            Map<String, Instructor> instructorsById = indexInstructors(instructors);
+            long[] imported = {0};
+            long lines = CsvReader.read(filePath, record -> {
+                sink.accept(courseFromCSV(record, instructorsById));
+                imported[0]++;
+            });
+            IMPORTED_RECORDS.add(imported[0]);
+            return lines;
+        } finally {
+            IMPORT_TIMER.recordSince(start);
+        }
+    }
+    
+    public List<Course> importCoursesParallel(String filename, List<Instructor> instructors) 
+            throws IOException, FileImportException {
+        return importCoursesParallel(filename, instructors, Runtime.getRuntime().availableProcessors());
+    }
+    
+    public List<Course> importCoursesParallel(String filename, List<Instructor> instructors, int parallelism) 
+            throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            Path filePath = resolveExisting(filename);
+            Map<String, Instructor> instructorsById = indexInstructors(instructors);
+            return countImported(ParallelCsvImporter.read(filePath, parallelism, 
+                    record -> courseFromCSV(record, instructorsById)));
+        } finally {
+            IMPORT_TIMER.recordSince(start);
+        }
+    }
+    
+    // Batch enrollment rows: regNo,courseCode[,SEMESTER]; file order is kept
+    public List<EnrollmentRequest> importEnrollmentRequests(String filename) throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            Path filePath = resolveExisting(filename);
+            return countImported(ParallelCsvImporter.read(filePath, Runtime.getRuntime().availableProcessors(), 
+                    this::enrollmentRequestFromCSV));
+        } finally {
+            IMPORT_TIMER.recordSince(start);
+        }
+    }
+    
+    private static <T> List<T> countImported(List<T> records) {
+        IMPORTED_RECORDS.add(records.size());
+        return records;
+    }
+    
+    private Path resolveExisting(String filename) throws FileImportException {
         Path filePath = config.getDataDirectory().resolve(filename);
         if (!Files.exists(filePath)) {
             throw new FileImportException("File not found: " + filename);
         }
-        
-        List<Course> courses = new ArrayList<>();
-        List<String> lines = Files.readAllLines(filePath);
-        
-        for (int i = 0; i < lines.size(); i++) {
-            try {
-                String line = lines.get(i);
-                if (line.trim().isEmpty()) continue;
-                
-                Course course = courseFromCSV(line, instructors);
-                courses.add(course);
-            } catch (Exception e) {
-                throw new FileImportException("Error parsing line " + (i + 1) + ": " + e.getMessage());
-            }
+        return filePath;
+    }
+    
+    private static Map<String, Instructor> indexInstructors(List<Instructor> instructors) {
+        Map<String, Instructor> byId = new HashMap<>();
+        for (Instructor instructor : instructors) {
+            byId.putIfAbsent(instructor.getId(), instructor);
         }
-        
-        return courses;
+        return byId;
+    }
+    
+    private EnrollmentRequest enrollmentRequestFromCSV(CsvReader.CsvRecord record) {
+        if (record.fieldCount() < 2) {
+            throw new IllegalArgumentException("Invalid CSV format for enrollment request");
+        }
+        Semester semester = record.fieldCount() > 2 && !record.isEmpty(2) ? Semester.valueOf(record.field(2)) : null;
+        return new EnrollmentRequest(record.field(0), record.field(1), semester);
     }
     
     private String studentToCSV(Student student) {
@@ -103,14 +219,13 @@ public class FileService {
         );
     }
     
-    private Student studentFromCSV(String csvLine) {
-        String[] parts = csvLine.split(",");
-        if (parts.length < 6) {
+    private Student studentFromCSV(CsvReader.CsvRecord record) {
+        if (record.fieldCount() < 6) {
             throw new IllegalArgumentException("Invalid CSV format for student");
         }
         
-        Student student = new Student(parts[0], parts[1], parts[2], parts[3]);
-        student.setActive(Boolean.parseBoolean(parts[4]));
+        Student student = new Student(record.field(0), record.field(1), record.field(2), record.field(3));
+        student.setActive(record.booleanField(4));
         // Note: dateCreated is set automatically in constructor
         return student;
     }
@@ -123,28 +238,25 @@ public class FileService {
                 course.getInstructor() != null ? course.getInstructor().getId() : "",
                 course.getSemester().name(),
                 course.getDepartment(),
-                String.valueOf(course.isActive())
+                String.valueOf(course.isActive()),
+                String.valueOf(course.getCapacity())
         );
     }
     
-    private Course courseFromCSV(String csvLine, List<Instructor> instructors) {
-        String[] parts = csvLine.split(",");
-        if (parts.length < 7) {
+    private Course courseFromCSV(CsvReader.CsvRecord record, Map<String, Instructor> instructorsById) {
+        if (record.fieldCount() < 7) {
             throw new IllegalArgumentException("Invalid CSV format for course");
         }
         
-        CourseCode code = new CourseCode(parts[0]);
-        String title = parts[1];
-        int credits = Integer.parseInt(parts[2]);
-        String instructorId = parts[3];
-        Semester semester = Semester.valueOf(parts[4]);
-        String department = parts[5];
-        boolean active = Boolean.parseBoolean(parts[6]);
-        
-        Instructor instructor = instructors.stream()
-                .filter(i -> i.getId().equals(instructorId))
-                .findFirst()
-                .orElse(null);
+        CourseCode code = CourseCode.of(record.field(0));
+        String title = record.field(1);
+        int credits = record.intField(2);
+        Instructor instructor = record.isEmpty(3) ? null : instructorsById.get(record.field(3));
+        Semester semester = Semester.valueOf(record.field(4));
+        String department = record.field(5);
+        boolean active = record.booleanField(6);
+        // Capacity was added later; older exports have no eighth column
+        int capacity = record.fieldCount() > 7 && !record.isEmpty(7) ? record.intField(7) : Course.UNLIMITED;
         
         Course course = new Course.Builder()
                 .setCode(code)
@@ -153,34 +265,149 @@ public class FileService {
                 .setInstructor(instructor)
                 .setSemester(semester)
                 .setDepartment(department)
+                .setCapacity(capacity)
                 .build();
         
         course.setActive(active);
         return course;
     }
     
-    public void backupData(String backupName) throws IOException {
-        Path backupPath = config.getBackupDirectory().resolve(backupName);
-        if (!Files.exists(backupPath)) {
-            Files.createDirectories(backupPath);
+    // Binary snapshot of the whole dataset; CSV stays the interchange format
+    public void saveSnapshot(String filename, Dataset data) throws IOException {
+        long start = System.nanoTime();
+        try {
+            new SnapshotWriter().write(config.getDataDirectory().resolve(filename), data);
+        } finally {
+            SNAPSHOT_SAVE_TIMER.recordSince(start);
+        }
+    }
+    
+    public Dataset loadSnapshot(String filename) throws IOException, FileImportException {
+        long start = System.nanoTime();
+        try {
+            return new SnapshotReader().read(resolveExisting(filename));
+        } finally {
+            SNAPSHOT_LOAD_TIMER.recordSince(start);
+        }
+    }
+    
+    // Read-only view for reports; nothing is copied onto the heap beyond offset tables
+    public MappedDataset mapSnapshot(String filename, boolean verifyChecksums) throws IOException, FileImportException {
+        return MappedDataset.open(resolveExisting(filename), verifyChecksums);
+    }
+    
+    // Journal files live in the data directory so they are included in backups
+    public EnrollmentJournal openEnrollmentJournal(Supplier<? extends Collection<Student>> students) throws IOException {
+        return new EnrollmentJournal(config.getDataDirectory(), students);
+    }
+    
+    /**
+     * Backs up the data directory into the deduplicating backup store. Unchanged files are
+     * not read again; changed ones are hashed and stored on a bounded pool of workers.
+     */
+    public BackupResult backupData(String backupName) throws IOException {
+        return backupData(backupName, BackupProgress.NONE);
+    }
+    
+    public BackupResult backupData(String backupName, BackupProgress progress) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (Files.exists(archivePath(backupName))) {
+                throw new IOException("Backup already exists: " + backupName);
+            }
+            return backupStore.backup(config.getDataDirectory(), backupName, BACKUP_THREADS, progress);
+        } finally {
+            BACKUP_TIMER.recordSince(start);
+        }
+    }
+    
+    /**
+     * Writes the data directory as a single compressed archive, compressing blocks of the
+     * files on the same bounded pool. Stored bytes in the result are the compressed size.
+     */
+    public BackupResult archiveData(String backupName, BackupProgress progress) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Path archive = archivePath(backupName);
+            if (Files.exists(archive) || backupStore.hasBackup(backupName)) {
+                throw new IOException("Backup already exists: " + backupName);
+            }
+            return BackupArchive.write(config.getDataDirectory(), archive, backupName, BACKUP_THREADS, progress);
+        } finally {
+            ARCHIVE_TIMER.recordSince(start);
+        }
+    }
+    
+    /**
+     * Rebuilds a backup's files under the given directory, which need not exist yet. Files
+     * are restored in parallel and checked against the checksums recorded at backup time.
+     */
+    public void restoreBackup(String backupName, Path target) throws IOException {
+        long start = System.nanoTime();
+        try {
+            Path archive = archivePath(backupName);
+            Path folder = config.getBackupDirectory().resolve(BackupStore.checkName(backupName));
+            if (Files.exists(archive)) {
+                BackupArchive.extract(archive, target, BACKUP_THREADS);
+            } else if (!backupStore.hasBackup(backupName) && Files.isDirectory(folder)) {
+                // Folder copies from before the backup store carry no checksums to verify
+                for (Path source : BackupStore.listFiles(folder)) {
+                    Path copy = target.resolve(folder.relativize(source));
+                    Files.createDirectories(copy.getParent());
+                    Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } else {
+                backupStore.restore(backupName, target, BACKUP_THREADS);
+            }
+        } finally {
+            RESTORE_TIMER.recordSince(start);
+        }
+    }
+    
+    /**
+     * Replaces the data directory with a backup. The backup is restored and verified in a
+     * staging directory beside it, which is then renamed into place, so a failed restore
+     * leaves the current data untouched. The replaced directory is kept and its path returned.
+     * Files held open in the data directory, such as the enrollment journal, must be closed first.
+     */
+    public Path restoreDataDirectory(String backupName) throws IOException {
+        Path data = config.getDataDirectory().toAbsolutePath().normalize();
+        Path staging = data.resolveSibling(data.getFileName() + ".restoring");
+        Path previous = data.resolveSibling(data.getFileName() + ".before-restore-" +
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")));
+        if (Files.exists(previous)) {
+            throw new IOException("Restore target already exists: " + previous);
         }
         
-        // Copy all files from data directory to backup directory
-        try (Stream<Path> paths = Files.walk(config.getDataDirectory())) {
-            paths.filter(Files::isRegularFile)
-                 .forEach(source -> {
-                     try {
-                         Path target = backupPath.resolve(config.getDataDirectory().relativize(source));
-                         Files.createDirectories(target.getParent());
-                         Files.copy(source, target, java.nio.file.StandardCopyOption.REPLACE_EXISTING);
-                     } catch (IOException e) {
-                         System.err.println("Error copying file: " + e.getMessage());
-                     }
-                 });
+        deleteRecursively(staging);
+        try {
+            restoreBackup(backupName, staging);
+        } catch (IOException | RuntimeException e) {
+            deleteRecursively(staging);
+            throw e;
         }
+        
+        Files.move(data, previous, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            Files.move(staging, data, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.move(previous, data, StandardCopyOption.ATOMIC_MOVE);
+            throw e;
+        }
+        return previous;
     }
     
+    // Size of the backed-up files before compression or deduplication
     public long getBackupSize(String backupName) throws IOException {
+        Path archive = archivePath(backupName);
+        if (Files.exists(archive)) {
+            return BackupArchive.readIndex(archive).totalBytes();
+        }
+        if (backupStore.hasBackup(backupName)) {
+            return backupStore.logicalSize(backupName);
+        }
+        
+        // Folder copies written before the backup store existed
         Path backupPath = config.getBackupDirectory().resolve(backupName);
         if (!Files.exists(backupPath)) {
             return 0;
@@ -189,6 +416,32 @@ public class FileService {
         return calculateDirectorySize(backupPath);
     }
     
+    // Bytes the backup occupies on disk: the compressed size for archives, read from the archive index
+    public long getStoredBackupSize(String backupName) throws IOException {
+        Path archive = archivePath(backupName);
+        if (Files.exists(archive)) {
+            return BackupArchive.readIndex(archive).compressedBytes();
+        }
+        // Chunks are stored uncompressed, and folder copies are their own size
+        return getBackupSize(backupName);
+    }
+    
+    private Path archivePath(String backupName) {
+        return config.getBackupDirectory().resolve("archives")
+                .resolve(BackupStore.checkName(backupName) + BackupArchive.SUFFIX);
+    }
+    
+    private static void deleteRecursively(Path root) throws IOException {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+    }
+    
     // Recursive method to calculate directory size
     private long calculateDirectorySize(Path path) throws IOException {
         if (!Files.exists(path)) {
@@ -0,0 +1,379 @@
+
+// src/edu/ccrm/io/MappedDataset.java
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.exception.FileImportException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Read-only, memory-mapped view of a binary snapshot for reporting.
+ *
+ * Opening a snapshot decodes only the string dictionary and a table of record offsets;
+ * students, courses and enrollments stay in the mapped file and are read through
+ * flyweight views that decode a field when it is asked for. A view is repositioned
+ * rather than reallocated, so a pass over every student allocates nothing per record.
+ * Views are not thread-safe; give each thread its own from student()/course().
+ *
+ * A single mapping is limited to 2 GB, which bounds the snapshot size this class accepts.
+ */
+public class MappedDataset {
+    private static final Grade[] GRADES = Grade.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private String[] strings = new String[0];
+    private ByteBuffer courseSection = EMPTY;
+    private int[] courseOffsets = new int[0];
+    private int[] courseCredits = new int[0];
+    private ByteBuffer studentSection = EMPTY;
+    private int[] studentOffsets = new int[0];
+
+    private MappedDataset() {
+    }
+
+    /**
+     * Maps the file and builds the offset tables. With verifyChecksums every section is
+     * read once to check its CRC; without it only record headers are touched.
+     */
+    public static MappedDataset open(Path path, boolean verifyChecksums) throws IOException, FileImportException {
+        ByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new FileImportException("Snapshot " + path.getFileName() + " is " + size 
+                        + " bytes; a mapped view is limited to " + Integer.MAX_VALUE);
+            }
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        MappedDataset dataset = new MappedDataset();
+        try {
+            dataset.index(data, verifyChecksums);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new FileImportException("Corrupt snapshot " + path.getFileName() + ": " + e, e);
+        }
+        return dataset;
+    }
+
+    public int studentCount() {
+        return studentOffsets.length;
+    }
+
+    public int courseCount() {
+        return courseOffsets.length;
+    }
+
+    // A new flyweight positioned on the given student
+    public StudentView student(int index) {
+        return new StudentView().moveTo(index);
+    }
+
+    // A new flyweight for scanning; moveTo() must be called before reading from it
+    public StudentView studentView() {
+        return new StudentView();
+    }
+
+    public CourseView course(int index) {
+        return new CourseView().moveTo(index);
+    }
+
+    private void index(ByteBuffer data, boolean verifyChecksums) throws FileImportException {
+        SnapshotReader.readHeader(data);
+        while (true) {
+            SnapshotReader.Section section = verifyChecksums
+                    ? SnapshotReader.nextSection(data)
+                    : skipSection(data);
+            if (section == null) {
+                return;
+            }
+            ByteBuffer payload = section.payload;
+            switch (section.tag) {
+                case SnapshotFormat.STRINGS:
+                    strings = new String[SnapshotFormat.readVarint(payload)];
+                    for (int i = 0; i < strings.length; i++) {
+                        strings[i] = SnapshotFormat.readString(payload);
+                    }
+                    break;
+                case SnapshotFormat.COURSES:
+                    courseSection = payload.duplicate();
+                    courseOffsets = new int[SnapshotFormat.readVarint(payload)];
+                    courseCredits = new int[courseOffsets.length];
+                    for (int i = 0; i < courseOffsets.length; i++) {
+                        courseOffsets[i] = payload.position();
+                        SnapshotFormat.skipString(payload);
+                        SnapshotFormat.skipString(payload);
+                        // Credits are kept decoded: every GPA calculation needs them
+                        courseCredits[i] = SnapshotFormat.readVarint(payload);
+                        SnapshotFormat.readVarint(payload);
+                        payload.get();
+                        SnapshotFormat.readVarint(payload);
+                        payload.get();
+                        SnapshotFormat.readVarint(payload);
+                    }
+                    break;
+                case SnapshotFormat.STUDENTS:
+                    studentSection = payload.duplicate();
+                    studentOffsets = new int[SnapshotFormat.readVarint(payload)];
+                    for (int i = 0; i < studentOffsets.length; i++) {
+                        int length = SnapshotFormat.readVarint(payload);
+                        studentOffsets[i] = payload.position();
+                        payload.position(payload.position() + length);
+                    }
+                    break;
+                default:
+                    // Instructors are not exposed; unknown sections from newer writers are skipped
+                    break;
+            }
+        }
+    }
+
+    // Same framing as SnapshotReader.nextSection, without reading the payload for its CRC
+    private static SnapshotReader.Section skipSection(ByteBuffer data) throws FileImportException {
+        byte tag = data.get();
+        if (tag == SnapshotFormat.END) {
+            return null;
+        }
+        int length = data.getInt();
+        if (length < 0 || data.remaining() < length + 4) {
+            throw new FileImportException("Truncated snapshot section " + tag);
+        }
+        ByteBuffer payload = data.slice();
+        payload.limit(length);
+        data.position(data.position() + length + 4);
+        return new SnapshotReader.Section(tag, payload);
+    }
+
+    // Records are decoded lazily, after open() has returned, so a malformed one is reported unchecked
+    private static IllegalStateException corrupt(Exception e) {
+        return new IllegalStateException("Corrupt snapshot record: " + e, e);
+    }
+
+    /**
+     * Flyweight over one student record.
+     */
+    public final class StudentView {
+        private final ByteBuffer in = studentSection.duplicate();
+        private final EnrollmentView enrollments = new EnrollmentView();
+        private int offset;
+
+        public StudentView moveTo(int index) {
+            offset = studentOffsets[index];
+            return this;
+        }
+
+        public String getId() { return stringField(0); }
+        public String getRegNo() { return stringField(1); }
+        public String getFullName() { return stringField(2); }
+        public String getEmail() { return stringField(3); }
+
+        public LocalDate getDateCreated() {
+            try {
+                skipStrings(4);
+                return LocalDate.ofEpochDay(SnapshotFormat.readZigzag(in));
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public boolean isActive() {
+            try {
+                skipStrings(4);
+                SnapshotFormat.readVarlong(in);
+                return in.get() != 0;
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        // Cursor over this student's enrollments; the same instance is reset on every call
+        public EnrollmentView enrollments() {
+            try {
+                skipStrings(4);
+                SnapshotFormat.readVarlong(in);
+                in.get();
+                int count = SnapshotFormat.readVarint(in);
+                return enrollments.reset(in.position(), count);
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        // Same arithmetic, in the same order, as Student.calculateGPA
+        public double calculateGPA() {
+            EnrollmentView e = enrollments();
+            double totalPoints = 0.0;
+            int totalCredits = 0;
+            while (e.next()) {
+                if (e.gradeByte > 0) {
+                    int credits = courseCredits[e.courseIndex];
+                    totalPoints += GRADES[e.gradeByte - 1].getPoints() * credits;
+                    totalCredits += credits;
+                }
+            }
+            return totalCredits > 0 ? totalPoints / totalCredits : 0.0;
+        }
+
+        private String stringField(int index) {
+            try {
+                skipStrings(index);
+                return SnapshotFormat.readString(in);
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        private void skipStrings(int count) throws FileImportException {
+            in.position(offset);
+            for (int i = 0; i < count; i++) {
+                SnapshotFormat.skipString(in);
+            }
+        }
+    }
+
+    /**
+     * Cursor over the enrollments of one student; call next() before reading fields.
+     */
+    public final class EnrollmentView {
+        private final ByteBuffer in = studentSection.duplicate();
+        private final CourseView course = new CourseView();
+        private int remaining;
+        private int courseIndex;
+        private long epochDay;
+        private int gradeByte;
+
+        private EnrollmentView reset(int position, int count) {
+            in.position(position);
+            remaining = count;
+            return this;
+        }
+
+        public boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            try {
+                courseIndex = SnapshotFormat.readVarint(in);
+                epochDay = SnapshotFormat.readZigzag(in);
+                gradeByte = in.get();
+                // Without checksums nothing else catches a damaged record before it is used as an index
+                if (courseIndex < 0 || courseIndex >= courseOffsets.length) {
+                    throw new FileImportException("Enrollment refers to course " + courseIndex 
+                            + " of " + courseOffsets.length);
+                }
+                if (gradeByte < 0 || gradeByte > GRADES.length) {
+                    throw new FileImportException("Invalid grade " + gradeByte + " in enrollment");
+                }
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+            remaining--;
+            return true;
+        }
+
+        public int getCourseIndex() { return courseIndex; }
+        public int getCredits() { return courseCredits[courseIndex]; }
+        public LocalDate getEnrollmentDate() { return LocalDate.ofEpochDay(epochDay); }
+        public Grade getGrade() { return gradeByte == 0 ? null : GRADES[gradeByte - 1]; }
+
+        // Shared flyweight, moved to this enrollment's course
+        public CourseView getCourse() {
+            return course.moveTo(courseIndex);
+        }
+    }
+
+    /**
+     * Flyweight over one course record.
+     */
+    public final class CourseView {
+        private final ByteBuffer in = courseSection.duplicate();
+        private int index;
+
+        public CourseView moveTo(int index) {
+            this.index = index;
+            return this;
+        }
+
+        public int getCredits() {
+            return courseCredits[index];
+        }
+
+        public String getCode() {
+            try {
+                in.position(courseOffsets[index]);
+                return SnapshotFormat.readString(in);
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public String getTitle() {
+            try {
+                in.position(courseOffsets[index]);
+                SnapshotFormat.skipString(in);
+                return SnapshotFormat.readString(in);
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public Semester getSemester() {
+            try {
+                skipToSemester();
+                int ordinal = in.get();
+                return ordinal == 0 ? null : SEMESTERS[ordinal - 1];
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public String getDepartment() {
+            try {
+                skipToSemester();
+                in.get();
+                int ref = SnapshotFormat.readVarint(in);
+                return ref == 0 ? null : strings[ref - 1];
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public boolean isActive() {
+            try {
+                skipToSemester();
+                in.get();
+                SnapshotFormat.readVarint(in);
+                return in.get() != 0;
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        public int getCapacity() {
+            try {
+                skipToSemester();
+                in.get();
+                SnapshotFormat.readVarint(in);
+                in.get();
+                return SnapshotFormat.readVarint(in);
+            } catch (FileImportException | BufferUnderflowException | IllegalArgumentException e) {
+                throw corrupt(e);
+            }
+        }
+
+        private void skipToSemester() throws FileImportException {
+            in.position(courseOffsets[index]);
+            SnapshotFormat.skipString(in);
+            SnapshotFormat.skipString(in);
+            SnapshotFormat.readVarint(in);
+            SnapshotFormat.readVarint(in);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+
+// src/edu/ccrm/io/ParallelCsvImporter.java
+package edu.ccrm.io;
+
+import edu.ccrm.exception.FileImportException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Parses one CSV file on several threads.
+ *
+ * The file is cut into byte ranges that each end on a newline, every range is memory-mapped
+ * and parsed by its own CsvReader on a ForkJoinPool, and the per-range results are
+ * concatenated in file order. Each range counts its own lines, so a parse error can still be
+ * reported with its line number in the whole file.
+ */
+class ParallelCsvImporter {
+    private static final long MIN_PARALLEL_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int BOUNDARY_SCAN_SIZE = 4096;
+
+    private ParallelCsvImporter() {
+    }
+
+    static <T> List<T> read(Path path, int parallelism, Function<CsvReader.CsvRecord, T> parser)
+            throws IOException, FileImportException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (parallelism <= 1 || size < MIN_PARALLEL_SIZE) {
+                List<T> results = new ArrayList<>();
+                CsvReader.read(path, record -> results.add(parser.apply(record)));
+                return results;
+            }
+
+            long[] bounds = chunkBounds(channel, size, parallelism);
+            int chunkCount = bounds.length - 1;
+            List<ChunkResult<T>> chunks = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                chunks.add(new ChunkResult<>());
+            }
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            AtomicInteger firstFailedChunk = new AtomicInteger(Integer.MAX_VALUE);
+            try {
+                List<Future<?>> futures = new ArrayList<>(chunkCount);
+                for (int i = 0; i < chunkCount; i++) {
+                    int index = i;
+                    futures.add(pool.submit(() -> {
+                        parseChunk(channel, bounds[index], bounds[index + 1],
+                                parser, chunks.get(index), index, firstFailedChunk);
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Import interrupted", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException("Import failed: " + cause.getMessage(), cause);
+            } finally {
+                pool.shutdown();
+            }
+
+            return merge(chunks, firstFailedChunk.get());
+        }
+    }
+
+    private static <T> void parseChunk(FileChannel channel, long start, long end,
+                                       Function<CsvReader.CsvRecord, T> parser, ChunkResult<T> result,
+                                       int index, AtomicInteger firstFailedChunk) throws IOException {
+        // A later chunk's lines are never reported once an earlier chunk has failed
+        if (firstFailedChunk.get() < index) {
+            return;
+        }
+        CsvReader reader = new CsvReader(record -> result.items.add(parser.apply(record)));
+        try {
+            reader.feed(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            reader.finish();
+        } catch (FileImportException e) {
+            result.failure = e.getCause() != null ? e.getCause() : e;
+            firstFailedChunk.accumulateAndGet(index, Math::min);
+        }
+        result.lines = reader.getLineNumber();
+    }
+
+    private static <T> List<T> merge(List<ChunkResult<T>> chunks, int failedChunk) throws FileImportException {
+        if (failedChunk != Integer.MAX_VALUE) {
+            long linesBefore = 0;
+            for (int i = 0; i < failedChunk; i++) {
+                linesBefore += chunks.get(i).lines;
+            }
+            ChunkResult<T> failed = chunks.get(failedChunk);
+            throw new FileImportException("Error parsing line " + (linesBefore + failed.lines) + ": "
+                    + failed.failure.getMessage(), failed.failure);
+        }
+
+        int total = 0;
+        for (ChunkResult<T> chunk : chunks) {
+            total += chunk.items.size();
+        }
+        List<T> merged = new ArrayList<>(total);
+        for (ChunkResult<T> chunk : chunks) {
+            merged.addAll(chunk.items);
+        }
+        return merged;
+    }
+
+    // Offsets where each chunk starts; every inner boundary sits just past a newline
+    private static long[] chunkBounds(FileChannel channel, long size, int parallelism) throws IOException {
+        long chunkCount = Math.max((long) parallelism * CHUNKS_PER_THREAD, (size + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long target = Math.max(1, size / chunkCount);
+
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        ByteBuffer scan = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        long position = target;
+        while (position < size) {
+            long boundary = nextLineStart(channel, position, size, scan);
+            if (boundary >= size) {
+                break;
+            }
+            bounds.add(boundary);
+            position = boundary + target;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size, ByteBuffer scan) throws IOException {
+        long position = from;
+        while (position < size) {
+            scan.clear();
+            int read = channel.read(scan, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (scan.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static final class ChunkResult<T> {
+        final List<T> items = new ArrayList<>();
+        long lines;
+        Throwable failure;
+    }
+}
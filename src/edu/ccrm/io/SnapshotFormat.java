@@ -0,0 +1,156 @@
+
+// src/edu/ccrm/io/SnapshotFormat.java
+package edu.ccrm.io;
+
+import edu.ccrm.exception.FileImportException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Layout of the binary snapshot file, shared by the writer and the readers.
+ *
+ * <pre>
+ * header   : "CCRM" magic, short version
+ * section  : byte tag, int payload length, payload, int CRC32 of payload
+ * STRINGS  : varint count, then count x string      (dictionary for departments and instructor ids)
+ * INSTRUCTORS: varint count, then per instructor:
+ *              dict id, string name, string email, dict department, zigzag epoch day, byte active
+ * COURSES  : varint count, then per course:
+ *              string code, string title, varint credits, varint instructor index + 1 (0 = none),
+ *              byte semester ordinal + 1 (0 = none), dict department, byte active,
+ *              varint capacity (0 = unlimited)
+ * STUDENTS : varint count, then per student a varint record length followed by:
+ *              string id, string regNo, string name, string email, zigzag epoch day, byte active,
+ *              varint enrollment count, then per enrollment:
+ *              varint course index, zigzag epoch day, byte grade ordinal + 1 (0 = none)
+ * END      : tag only
+ * </pre>
+ * Strings are a varint (byte length + 1) followed by UTF-8, 0 meaning null; "dict" values are varint indexes into
+ * STRINGS plus one, with 0 meaning null. Student records are length-prefixed so a reader can
+ * skip over them without decoding.
+ */
+final class SnapshotFormat {
+    static final byte[] MAGIC = { 'C', 'C', 'R', 'M' };
+    static final short VERSION = 1;
+
+    static final byte END = 0;
+    static final byte STRINGS = 1;
+    static final byte INSTRUCTORS = 2;
+    static final byte COURSES = 3;
+    static final byte STUDENTS = 4;
+
+    private SnapshotFormat() {
+    }
+
+    static int readVarint(ByteBuffer buffer) throws FileImportException {
+        long value = readVarlong(buffer);
+        if (value > Integer.MAX_VALUE) {
+            throw new FileImportException("Snapshot varint out of range: " + value);
+        }
+        return (int) value;
+    }
+
+    static long readVarlong(ByteBuffer buffer) throws FileImportException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new FileImportException("Malformed varint in snapshot");
+    }
+
+    static long readZigzag(ByteBuffer buffer) throws FileImportException {
+        long raw = readVarlong(buffer);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    static String readString(ByteBuffer buffer) throws FileImportException {
+        int length = readVarint(buffer) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                    StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void skipString(ByteBuffer buffer) throws FileImportException {
+        int length = readVarint(buffer) - 1;
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    /**
+     * Growable heap buffer for encoding one section.
+     */
+    static final class Sink {
+        private byte[] bytes = new byte[1 << 12];
+        private int size;
+
+        void putByte(int value) {
+            ensure(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void putVarlong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void putZigzag(long value) {
+            putVarlong((value << 1) ^ (value >> 63));
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putVarlong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            putVarlong(utf8.length + 1L);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+
+        void putSink(Sink other) {
+            ensure(other.size);
+            System.arraycopy(other.bytes, 0, bytes, size, other.size);
+            size += other.size;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        ByteBuffer toBuffer() {
+            return ByteBuffer.wrap(bytes, 0, size);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+
+// src/edu/ccrm/io/SnapshotReader.java
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.exception.FileImportException;
+import edu.ccrm.util.CourseCode;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Decodes a binary snapshot into domain objects. The file is memory-mapped and every
+ * section's checksum is verified before it is decoded.
+ */
+class SnapshotReader {
+    private String[] strings = new String[0];
+    private List<Instructor> instructors = Collections.emptyList();
+    private List<Course> courses = Collections.emptyList();
+    private List<Student> students = Collections.emptyList();
+
+    Dataset read(Path path) throws IOException, FileImportException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader(data);
+            for (Section section = nextSection(data); section != null; section = nextSection(data)) {
+                ByteBuffer payload = section.payload;
+                switch (section.tag) {
+                    case SnapshotFormat.STRINGS:
+                        readStrings(payload);
+                        break;
+                    case SnapshotFormat.INSTRUCTORS:
+                        readInstructors(payload);
+                        break;
+                    case SnapshotFormat.COURSES:
+                        readCourses(payload);
+                        break;
+                    case SnapshotFormat.STUDENTS:
+                        readStudents(payload);
+                        break;
+                    default:
+                        // Unknown sections from newer writers are skipped
+                        break;
+                }
+            }
+            return new Dataset(instructors, courses, students);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new FileImportException("Corrupt snapshot " + path.getFileName() + ": " + e, e);
+        }
+    }
+
+    static void readHeader(ByteBuffer data) throws FileImportException {
+        for (byte b : SnapshotFormat.MAGIC) {
+            if (!data.hasRemaining() || data.get() != b) {
+                throw new FileImportException("Not a CCRM snapshot file");
+            }
+        }
+        short version = data.getShort();
+        if (version != SnapshotFormat.VERSION) {
+            throw new FileImportException("Unsupported snapshot version: " + version);
+        }
+    }
+
+    // Returns the next section, or null at the END marker. The section's CRC is checked here.
+    static Section nextSection(ByteBuffer data) throws FileImportException {
+        byte tag = data.get();
+        if (tag == SnapshotFormat.END) {
+            return null;
+        }
+        int length = data.getInt();
+        if (length < 0 || data.remaining() < length + 4) {
+            throw new FileImportException("Truncated snapshot section " + tag);
+        }
+        ByteBuffer payload = data.slice();
+        payload.limit(length);
+        data.position(data.position() + length);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != data.getInt()) {
+            throw new FileImportException("Checksum mismatch in snapshot section " + tag);
+        }
+
+        return new Section(tag, payload);
+    }
+
+    private void readStrings(ByteBuffer in) throws FileImportException {
+        int count = SnapshotFormat.readVarint(in);
+        strings = new String[count];
+        for (int i = 0; i < count; i++) {
+            strings[i] = SnapshotFormat.readString(in);
+        }
+    }
+
+    private void readInstructors(ByteBuffer in) throws FileImportException {
+        int count = SnapshotFormat.readVarint(in);
+        instructors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String id = dict(in);
+            String fullName = SnapshotFormat.readString(in);
+            String email = SnapshotFormat.readString(in);
+            String department = dict(in);
+            Instructor instructor = new Instructor(id, fullName, email, department);
+            instructor.setDateCreated(LocalDate.ofEpochDay(SnapshotFormat.readZigzag(in)));
+            instructor.setActive(in.get() != 0);
+            instructors.add(instructor);
+        }
+    }
+
+    private void readCourses(ByteBuffer in) throws FileImportException {
+        int count = SnapshotFormat.readVarint(in);
+        courses = new ArrayList<>(count);
+        Semester[] semesters = Semester.values();
+        for (int i = 0; i < count; i++) {
+            String code = SnapshotFormat.readString(in);
+            String title = SnapshotFormat.readString(in);
+            int credits = SnapshotFormat.readVarint(in);
+            int instructorRef = SnapshotFormat.readVarint(in);
+            int semester = in.get();
+            String department = dict(in);
+            boolean active = in.get() != 0;
+            int capacity = SnapshotFormat.readVarint(in);
+
+            Course course = new Course.Builder()
+                    .setCode(code != null ? CourseCode.of(code) : null)
+                    .setTitle(title)
+                    .setCredits(credits)
+                    .setInstructor(instructorRef > 0 ? instructors.get(instructorRef - 1) : null)
+                    .setSemester(semester > 0 ? semesters[semester - 1] : null)
+                    .setDepartment(department)
+                    .setCapacity(capacity)
+                    .build();
+            course.setActive(active);
+            courses.add(course);
+        }
+    }
+
+    private void readStudents(ByteBuffer in) throws FileImportException {
+        int count = SnapshotFormat.readVarint(in);
+        students = new ArrayList<>(count);
+        Grade[] grades = Grade.values();
+        for (int i = 0; i < count; i++) {
+            SnapshotFormat.readVarint(in); // record length, only needed by readers that skip
+            Student student = new Student(SnapshotFormat.readString(in), SnapshotFormat.readString(in),
+                    SnapshotFormat.readString(in), SnapshotFormat.readString(in));
+            student.setDateCreated(LocalDate.ofEpochDay(SnapshotFormat.readZigzag(in)));
+            student.setActive(in.get() != 0);
+            int enrollmentCount = SnapshotFormat.readVarint(in);
+            for (int e = 0; e < enrollmentCount; e++) {
+                Course course = courses.get(SnapshotFormat.readVarint(in));
+                Enrollment enrollment = new Enrollment(student, course,
+                        LocalDate.ofEpochDay(SnapshotFormat.readZigzag(in)));
+                int grade = in.get();
+                if (grade > 0) {
+                    enrollment.setGrade(grades[grade - 1]);
+                }
+                student.addEnrollment(enrollment);
+            }
+            students.add(student);
+        }
+    }
+
+    private String dict(ByteBuffer in) throws FileImportException {
+        int ref = SnapshotFormat.readVarint(in);
+        return ref == 0 ? null : strings[ref - 1];
+    }
+
+    static final class Section {
+        final byte tag;
+        final ByteBuffer payload;
+
+        Section(byte tag, ByteBuffer payload) {
+            this.tag = tag;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+
+// src/edu/ccrm/io/SnapshotWriter.java
+package edu.ccrm.io;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Instructor;
+import edu.ccrm.domain.Student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Encodes a Dataset in the binary snapshot format described in SnapshotFormat.
+ * The file is written to a temporary sibling and moved into place, so a crash never
+ * leaves a half-written snapshot under the real name.
+ */
+class SnapshotWriter {
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final Map<Instructor, Integer> instructorIndex = new IdentityHashMap<>();
+    private final List<Instructor> instructors = new ArrayList<>();
+    private final Map<Course, Integer> courseIndex = new IdentityHashMap<>();
+    private final List<Course> courses = new ArrayList<>();
+
+    void write(Path path, Dataset data) throws IOException {
+        data.getInstructors().forEach(this::instructorRef);
+        data.getCourses().forEach(this::courseRef);
+
+        // Students first: enrollments may reference courses that are no longer in the catalog,
+        // and courses may reference instructors outside the roster; both get appended on the fly
+        SnapshotFormat.Sink studentSection = encodeStudents(data.getStudents());
+        SnapshotFormat.Sink courseSection = encodeCourses();
+        SnapshotFormat.Sink instructorSection = encodeInstructors();
+        SnapshotFormat.Sink stringSection = encodeStrings();
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(SnapshotFormat.MAGIC.length + 2);
+            header.put(SnapshotFormat.MAGIC).putShort(SnapshotFormat.VERSION).flip();
+            writeFully(out, header);
+            writeSection(out, SnapshotFormat.STRINGS, stringSection);
+            writeSection(out, SnapshotFormat.INSTRUCTORS, instructorSection);
+            writeSection(out, SnapshotFormat.COURSES, courseSection);
+            writeSection(out, SnapshotFormat.STUDENTS, studentSection);
+            writeFully(out, ByteBuffer.wrap(new byte[] { SnapshotFormat.END }));
+            out.force(true);
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private SnapshotFormat.Sink encodeStudents(List<Student> students) {
+        SnapshotFormat.Sink section = new SnapshotFormat.Sink();
+        SnapshotFormat.Sink record = new SnapshotFormat.Sink();
+        section.putVarlong(students.size());
+        for (Student student : students) {
+            record.reset();
+            record.putString(student.getId());
+            record.putString(student.getRegNo());
+            record.putString(student.getFullName());
+            record.putString(student.getEmail());
+            record.putZigzag(epochDay(student.getDateCreated()));
+            record.putByte(student.isActive() ? 1 : 0);
+            List<Enrollment> enrollments = student.getEnrollments();
+            record.putVarlong(enrollments.size());
+            for (Enrollment enrollment : enrollments) {
+                record.putVarlong(courseRef(enrollment.getCourse()));
+                record.putZigzag(epochDay(enrollment.getEnrollmentDate()));
+                record.putByte(enrollment.getGrade() == null ? 0 : enrollment.getGrade().ordinal() + 1);
+            }
+            section.putVarlong(record.size());
+            section.putSink(record);
+        }
+        return section;
+    }
+
+    private SnapshotFormat.Sink encodeCourses() {
+        SnapshotFormat.Sink section = new SnapshotFormat.Sink();
+        section.putVarlong(courses.size());
+        for (Course course : courses) {
+            section.putString(course.getCode() != null ? course.getCode().getCode() : null);
+            section.putString(course.getTitle());
+            section.putVarlong(course.getCredits());
+            section.putVarlong(course.getInstructor() != null ? instructorRef(course.getInstructor()) + 1 : 0);
+            section.putByte(course.getSemester() != null ? course.getSemester().ordinal() + 1 : 0);
+            section.putVarlong(stringRef(course.getDepartment()));
+            section.putByte(course.isActive() ? 1 : 0);
+            section.putVarlong(course.getCapacity());
+        }
+        return section;
+    }
+
+    private SnapshotFormat.Sink encodeInstructors() {
+        SnapshotFormat.Sink section = new SnapshotFormat.Sink();
+        section.putVarlong(instructors.size());
+        for (Instructor instructor : instructors) {
+            section.putVarlong(stringRef(instructor.getId()));
+            section.putString(instructor.getFullName());
+            section.putString(instructor.getEmail());
+            section.putVarlong(stringRef(instructor.getDepartment()));
+            section.putZigzag(epochDay(instructor.getDateCreated()));
+            section.putByte(instructor.isActive() ? 1 : 0);
+        }
+        return section;
+    }
+
+    private SnapshotFormat.Sink encodeStrings() {
+        SnapshotFormat.Sink section = new SnapshotFormat.Sink();
+        section.putVarlong(strings.size());
+        for (String value : strings) {
+            section.putString(value);
+        }
+        return section;
+    }
+
+    private int instructorRef(Instructor instructor) {
+        return instructorIndex.computeIfAbsent(instructor, i -> {
+            instructors.add(i);
+            return instructors.size() - 1;
+        });
+    }
+
+    private int courseRef(Course course) {
+        return courseIndex.computeIfAbsent(course, c -> {
+            courses.add(c);
+            return courses.size() - 1;
+        });
+    }
+
+    private int stringRef(String value) {
+        if (value == null) {
+            return 0;
+        }
+        return dictionary.computeIfAbsent(value, v -> {
+            strings.add(v);
+            return strings.size();
+        });
+    }
+
+    // Days since the epoch; the CSV path never kept these, so dates survive only in snapshots
+    private static long epochDay(LocalDate date) {
+        return date != null ? date.toEpochDay() : 0;
+    }
+
+    private static void writeSection(FileChannel out, byte tag, SnapshotFormat.Sink payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload.toBuffer());
+        ByteBuffer header = ByteBuffer.allocate(5);
+        header.put(tag).putInt(payload.size()).flip();
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        trailer.putInt((int) crc.getValue()).flip();
+        ByteBuffer body = payload.toBuffer();
+        ByteBuffer[] parts = { header, body, trailer };
+        while (trailer.hasRemaining()) {
+            out.write(parts);
+        }
+    }
+
+    private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+}
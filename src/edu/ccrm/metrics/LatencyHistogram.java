@@ -0,0 +1,158 @@
+
+// src/edu/ccrm/metrics/LatencyHistogram.java
+package edu.ccrm.metrics;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ *
+ * Values below 128 ns get a bucket each; above that every power of two is split into 64
+ * buckets, so a reported percentile is within 1/64 (about 1.6%) of the true value over
+ * the whole long range, in a fixed array of 3,712 counters. Recording is one atomic
+ * increment plus two striped adders and allocates nothing. Reads are not atomic across
+ * buckets; a snapshot taken while values are being recorded may miss the newest ones.
+ *
+ * Reading the clock costs about as much as a hash lookup, so timers on calls that short
+ * are sampled: startSample() reads it on one call in sampleEvery, chosen at random, and
+ * the snapshot scales the count back up.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 6;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT;
+    private static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+    private final String name;
+    private final int sampleMask;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram(String name, int sampleEvery) {
+        if (Integer.bitCount(sampleEvery) != 1) {
+            throw new IllegalArgumentException("Sample rate must be a power of two: " + sampleEvery);
+        }
+        this.name = name;
+        this.sampleMask = sampleEvery - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Records the time since start, a System.nanoTime() reading
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    // A clock reading to pass to stopSample(), or a marker if this call is not timed
+    public long startSample() {
+        if (sampleMask != 0 && (ThreadLocalRandom.current().nextInt() & sampleMask) != 0) {
+            return NOT_SAMPLED;
+        }
+        return System.nanoTime();
+    }
+
+    public void stopSample(long start) {
+        if (start != NOT_SAMPLED) {
+            recordSince(start);
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(name, sampleMask + 1, copy, count, total.sum(), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        max.reset();
+    }
+
+    // Exact below 2 * SUB_COUNT; above it, the top SUB_BITS + 1 bits select the bucket
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift << SUB_BITS) + (int) (value >>> shift);
+    }
+
+    // Largest value that falls into the bucket
+    static long highestValueIn(int bucket) {
+        if (bucket < 2 * SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long mantissa = bucket - ((long) shift << SUB_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    /**
+     * Counts copied out of a histogram at one moment, for computing several percentiles
+     * from the same data.
+     */
+    public static final class Snapshot {
+        private final String name;
+        private final int sampleEvery;
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(String name, int sampleEvery, long[] counts, long count, long total, long max) {
+            this.name = name;
+            this.sampleEvery = sampleEvery;
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public String getName() { return name; }
+        public int getSampleEvery() { return sampleEvery; }
+        public long getSampledCount() { return count; }
+        // Calls made, estimated from the samples when not every call is timed
+        public long getCount() { return count * sampleEvery; }
+        public long getMaxNanos() { return max; }
+
+        public double getMeanNanos() {
+            return count > 0 ? (double) total / count : 0.0;
+        }
+
+        // Value at or below which the given fraction of recordings fall, e.g. 0.99 for p99
+        public long getPercentileNanos(double fraction) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
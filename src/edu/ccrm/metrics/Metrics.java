@@ -0,0 +1,127 @@
+
+// src/edu/ccrm/metrics/Metrics.java
+package edu.ccrm.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide registry of named latency histograms and counters.
+ *
+ * Services look their instruments up once, into static fields, and record with
+ * recordSince(start), stopSample(start) or increment(); nothing on that path takes a lock
+ * or allocates.
+ * Names are dotted, owner first ("student.enroll"), and listings are sorted by name.
+ */
+public final class Metrics {
+    public static final String OBJECT_NAME = "edu.ccrm:type=Metrics";
+
+    private static final double[] PERCENTILES = { 0.5, 0.99, 0.999 };
+    private static final Map<String, LatencyHistogram> TIMERS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram timer(String name) {
+        return timer(name, 1);
+    }
+
+    // A timer whose startSample() times one call in sampleEvery, a power of two
+    public static LatencyHistogram timer(String name, int sampleEvery) {
+        return TIMERS.computeIfAbsent(name, n -> new LatencyHistogram(n, sampleEvery));
+    }
+
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    public static List<LatencyHistogram.Snapshot> timerSnapshots() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(TIMERS.size());
+        for (LatencyHistogram timer : TIMERS.values()) {
+            snapshots.add(timer.snapshot());
+        }
+        return snapshots;
+    }
+
+    public static Map<String, Long> counterValues() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        COUNTERS.forEach((name, counter) -> values.put(name, counter.sum()));
+        return values;
+    }
+
+    public static void reset() {
+        TIMERS.values().forEach(LatencyHistogram::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+
+    // Plain-text table of every timer (in microseconds) and counter, for the menu and logs.
+    // Sampled timers are marked with their rate; their counts are estimates.
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-30s %10s %10s %10s %10s %10s %10s%n",
+                "Timer (us)", "count", "mean", "p50", "p99", "p999", "max"));
+        for (LatencyHistogram.Snapshot timer : timerSnapshots()) {
+            String name = timer.getSampleEvery() > 1 ? timer.getName() + " 1/" + timer.getSampleEvery() : timer.getName();
+            out.append(String.format("%-30s %10d %10.1f", name, timer.getCount(),
+                    timer.getMeanNanos() / 1000.0));
+            for (double percentile : PERCENTILES) {
+                out.append(String.format(" %10.1f", timer.getPercentileNanos(percentile) / 1000.0));
+            }
+            out.append(String.format(" %10.1f%n", timer.getMaxNanos() / 1000.0));
+        }
+        out.append(String.format("%n%-30s %10s%n", "Counter", "value"));
+        counterValues().forEach((name, value) -> out.append(String.format("%-30s %10d%n", name, value)));
+        return out.toString();
+    }
+
+    /**
+     * Registers the MetricsMXBean with the platform MBean server under OBJECT_NAME, so
+     * JConsole or any JMX client can read it. Returns false if that fails; calling it again
+     * is harmless.
+     */
+    public static boolean registerMBean() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MBean(), new ObjectName(OBJECT_NAME));
+            return true;
+        } catch (InstanceAlreadyExistsException e) {
+            return true;
+        } catch (JMException | SecurityException e) {
+            return false;
+        }
+    }
+
+    private static final class MBean implements MetricsMXBean {
+        @Override
+        public List<TimerStats> getTimers() {
+            List<TimerStats> stats = new ArrayList<>();
+            for (LatencyHistogram.Snapshot timer : timerSnapshots()) {
+                stats.add(new TimerStats(timer));
+            }
+            return stats;
+        }
+
+        @Override
+        public Map<String, Long> getCounters() {
+            return counterValues();
+        }
+
+        @Override
+        public String dump() {
+            return Metrics.dump();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
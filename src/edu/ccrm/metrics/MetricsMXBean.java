@@ -0,0 +1,20 @@
+
+// src/edu/ccrm/metrics/MetricsMXBean.java
+package edu.ccrm.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JMX view of Metrics, registered by Metrics.registerMBean(). Timers appear as composite
+ * rows with their percentiles in microseconds.
+ */
+public interface MetricsMXBean {
+    List<TimerStats> getTimers();
+
+    Map<String, Long> getCounters();
+
+    String dump();
+
+    void reset();
+}
@@ -0,0 +1,48 @@
+
+// src/edu/ccrm/metrics/TimerStats.java
+package edu.ccrm.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * One timer's summary as exposed over JMX, in microseconds.
+ */
+public class TimerStats {
+    private final String name;
+    private final long count;
+    private final int sampleEvery;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+
+    @ConstructorProperties({ "name", "count", "sampleEvery", "meanMicros", "p50Micros", "p99Micros", "p999Micros",
+            "maxMicros" })
+    public TimerStats(String name, long count, int sampleEvery, double meanMicros, double p50Micros,
+                      double p99Micros, double p999Micros, double maxMicros) {
+        this.name = name;
+        this.count = count;
+        this.sampleEvery = sampleEvery;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    TimerStats(LatencyHistogram.Snapshot timer) {
+        this(timer.getName(), timer.getCount(), timer.getSampleEvery(), timer.getMeanNanos() / 1000.0,
+                timer.getPercentileNanos(0.5) / 1000.0, timer.getPercentileNanos(0.99) / 1000.0,
+                timer.getPercentileNanos(0.999) / 1000.0, timer.getMaxNanos() / 1000.0);
+    }
+
+    public String getName() { return name; }
+    public long getCount() { return count; }
+    public int getSampleEvery() { return sampleEvery; }
+    public double getMeanMicros() { return meanMicros; }
+    public double getP50Micros() { return p50Micros; }
+    public double getP99Micros() { return p99Micros; }
+    public double getP999Micros() { return p999Micros; }
+    public double getMaxMicros() { return maxMicros; }
+}
@@ -0,0 +1,53 @@
+
+// src/edu/ccrm/report/AnalyticsReport.java
+package edu.ccrm.report;
+
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Results of one StudentAnalytics pass. Only active students are counted.
+ */
+public class AnalyticsReport {
+    private final long studentCount;
+    private final Map<GpaBand, Long> gpaDistribution;
+    private final List<Student> topStudents;
+    private final SortedMap<String, GroupStats> byDepartment;
+    private final Map<Semester, GroupStats> bySemester;
+    private final SortedMap<Integer, Long> creditLoad;
+    
+    AnalyticsReport(long studentCount, EnumMap<GpaBand, Long> gpaDistribution, List<Student> topStudents,
+                    SortedMap<String, GroupStats> byDepartment, EnumMap<Semester, GroupStats> bySemester,
+                    SortedMap<Integer, Long> creditLoad) {
+        this.studentCount = studentCount;
+        this.gpaDistribution = Collections.unmodifiableMap(gpaDistribution);
+        this.topStudents = Collections.unmodifiableList(topStudents);
+        this.byDepartment = Collections.unmodifiableSortedMap(byDepartment);
+        this.bySemester = Collections.unmodifiableMap(bySemester);
+        this.creditLoad = Collections.unmodifiableSortedMap(creditLoad);
+    }
+    
+    public long getStudentCount() { return studentCount; }
+    
+    // Every band is present, with zero counts included
+    public Map<GpaBand, Long> getGpaDistribution() { return gpaDistribution; }
+    
+    public long getCount(GpaBand band) { return gpaDistribution.get(band); }
+    
+    // Highest GPA first; ties keep roster order. Students without a GPA are left out.
+    public List<Student> getTopStudents() { return topStudents; }
+    
+    // Keyed by course department; courses without one are grouped under "Unassigned"
+    public SortedMap<String, GroupStats> getDepartmentStats() { return byDepartment; }
+    
+    public Map<Semester, GroupStats> getSemesterStats() { return bySemester; }
+    
+    // Total enrolled credits per student -> number of students carrying that load
+    public SortedMap<Integer, Long> getCreditLoad() { return creditLoad; }
+}
@@ -0,0 +1,546 @@
+
+// src/edu/ccrm/report/ColumnarStore.java
+package edu.ccrm.report;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.EnrollmentListener;
+import edu.ccrm.util.IdentityIntMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Enrollments held as parallel primitive arrays, for report scans that would otherwise chase
+ * Student -> Enrollment -> Course pointers.
+ *
+ * Each enrollment is one row across int student, int course, byte grade (ordinal + 1, 0 for
+ * none), byte semester (ordinal + 1) and short credits columns; courses and students are
+ * rows of their own, referenced by index. Reports are sequential loops over those columns.
+ *
+ * The store follows enrollment and roster events without making the enrolling thread wait
+ * for it. A listener only appends the change to one of STRIPES small buffers, picked by
+ * student, so one student's changes stay in order and students rarely share a buffer. Scans
+ * apply the buffered changes under the write lock and then read under the read lock, so a
+ * scan sees every change made before it started. A buffer that fills past DRAIN_THRESHOLD is
+ * applied by the thread that filled it, but only if the lock is free at that moment.
+ *
+ * Rows are found through primitive identity maps. A replaced student's row is emptied rather
+ * than reused until the next rebuild. Active flags are read from the students at the start of
+ * each scan.
+ */
+public class ColumnarStore implements EnrollmentListener {
+    private static final GpaBand[] BANDS = GpaBand.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final double[] GRADE_POINTS = gradePoints();
+
+    private static final int STRIPES = 64;
+    private static final int DRAIN_THRESHOLD = 4096;
+
+    // Kinds of buffered change
+    private static final byte ENROLLED = 0;
+    private static final byte UNENROLLED = 1;
+    private static final byte GRADED = 2;
+    private static final byte JOINED = 3;
+    private static final byte LEFT = 4;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Pending[] pending = new Pending[STRIPES];
+
+    // Student rows
+    private Student[] students = new Student[16];
+    private int studentCount;
+    private final IdentityIntMap<Student> studentRows = new IdentityIntMap<>();
+
+    // Course rows; departments are indexes into departmentNames
+    private Course[] courses = new Course[16];
+    private short[] courseCredits = new short[16];
+    private byte[] courseSemester = new byte[16];
+    private int[] courseDepartment = new int[16];
+    private int courseCount;
+    private final IdentityIntMap<Course> courseRows = new IdentityIntMap<>();
+    private final List<String> departmentNames = new ArrayList<>();
+    private final Map<String, Integer> departmentRows = new LinkedHashMap<>();
+
+    // Enrollment rows; semester and credits are copied from the course so scans stay in these arrays
+    private int[] enrollmentStudent = new int[64];
+    private int[] enrollmentCourse = new int[64];
+    private byte[] enrollmentGrade = new byte[64];
+    private byte[] enrollmentSemester = new byte[64];
+    private short[] enrollmentCredits = new short[64];
+    private Enrollment[] enrollments = new Enrollment[64];
+    private int enrollmentCount;
+    private final IdentityIntMap<Enrollment> enrollmentRows = new IdentityIntMap<>(64);
+
+    public ColumnarStore() {
+        for (int i = 0; i < STRIPES; i++) {
+            pending[i] = new Pending();
+        }
+    }
+
+    private static double[] gradePoints() {
+        Grade[] grades = Grade.values();
+        double[] points = new double[grades.length + 1];
+        for (Grade grade : grades) {
+            points[grade.ordinal() + 1] = grade.getPoints();
+        }
+        return points;
+    }
+
+    // Replaces the contents with the given students and their enrollments
+    public void rebuild(Collection<Student> roster) {
+        lock.writeLock().lock();
+        try {
+            // Changes buffered so far are covered by reading the students below; any made
+            // after this point are applied again later, which leaves the rows unchanged
+            for (Pending stripe : pending) {
+                stripe.take();
+            }
+            Arrays.fill(students, 0, studentCount, null);
+            Arrays.fill(courses, 0, courseCount, null);
+            Arrays.fill(enrollments, 0, enrollmentCount, null);
+            studentCount = courseCount = enrollmentCount = 0;
+            studentRows.clear();
+            courseRows.clear();
+            enrollmentRows.clear();
+            departmentNames.clear();
+            departmentRows.clear();
+            for (Student student : roster) {
+                synchronized (student) {
+                    studentRow(student);
+                    for (Enrollment enrollment : student.getEnrollments()) {
+                        addRow(enrollment);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        buffer(enrollment.getStudent(), ENROLLED, enrollment);
+    }
+
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        buffer(enrollment.getStudent(), UNENROLLED, enrollment);
+    }
+
+    @Override
+    public void graded(Enrollment enrollment, Grade previous) {
+        buffer(enrollment.getStudent(), GRADED, enrollment);
+    }
+
+    @Override
+    public void added(Student student) {
+        buffer(student, JOINED, student);
+        for (Enrollment enrollment : student.getEnrollments()) {
+            buffer(student, ENROLLED, enrollment);
+        }
+    }
+
+    @Override
+    public void removed(Student student) {
+        for (Enrollment enrollment : student.getEnrollments()) {
+            buffer(student, UNENROLLED, enrollment);
+        }
+        buffer(student, LEFT, student);
+    }
+
+    @Override
+    public void reloaded(Collection<Student> reloadedStudents) {
+        rebuild(reloadedStudents);
+    }
+
+    public int getStudentCount() {
+        lockForScan();
+        try {
+            return studentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEnrollmentCount() {
+        lockForScan();
+        try {
+            return enrollmentCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The same figures as StudentAnalytics.analyze over the stored students, computed from
+     * the columns. GPAs are sums of whole grade points times credits, so they match exactly;
+     * top-student ties are broken by store row rather than roster order.
+     */
+    public AnalyticsReport analyze(int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative: " + topK);
+        }
+        lockForScan();
+        try {
+            boolean[] active = activeStudents();
+            int departmentCount = departmentNames.size();
+            int[] departmentOfCourse = new int[courseCount];
+            for (int c = 0; c < courseCount; c++) {
+                departmentOfCourse[c] = courseDepartment[c] >= 0 ? courseDepartment[c] : departmentCount;
+            }
+
+            // Pass 1: enrollments -> per-student, per-department and per-semester totals
+            double[] studentPoints = new double[studentCount];
+            int[] studentGradedCredits = new int[studentCount];
+            int[] studentLoad = new int[studentCount];
+            long[] groupEnrollments = new long[departmentCount + 1 + SEMESTERS.length];
+            long[] groupGraded = new long[groupEnrollments.length];
+            long[] groupGradedCredits = new long[groupEnrollments.length];
+            double[] groupPoints = new double[groupEnrollments.length];
+            for (int e = 0; e < enrollmentCount; e++) {
+                int student = enrollmentStudent[e];
+                if (!active[student]) {
+                    continue;
+                }
+                int credits = enrollmentCredits[e];
+                int grade = enrollmentGrade[e];
+                studentLoad[student] += credits;
+
+                // Department groups first (the last one is "Unassigned"), then semesters
+                int department = departmentOfCourse[enrollmentCourse[e]];
+                int semester = enrollmentSemester[e];
+                groupEnrollments[department]++;
+                if (semester > 0) {
+                    groupEnrollments[departmentCount + semester]++;
+                }
+                if (grade > 0) {
+                    double points = GRADE_POINTS[grade] * credits;
+                    studentPoints[student] += points;
+                    studentGradedCredits[student] += credits;
+                    groupGraded[department]++;
+                    groupGradedCredits[department] += credits;
+                    groupPoints[department] += points;
+                    if (semester > 0) {
+                        groupGraded[departmentCount + semester]++;
+                        groupGradedCredits[departmentCount + semester] += credits;
+                        groupPoints[departmentCount + semester] += points;
+                    }
+                }
+            }
+
+            // Pass 2: students -> GPA bands, credit loads and the top K
+            long count = 0;
+            long[] bands = new long[BANDS.length];
+            TreeMap<Integer, Long> load = new TreeMap<>();
+            double[] topGpa = new double[topK];
+            int[] topRow = new int[topK];
+            int topSize = 0;
+            for (int s = 0; s < studentCount; s++) {
+                if (!active[s]) {
+                    continue;
+                }
+                count++;
+                double gpa = studentGradedCredits[s] > 0 ? studentPoints[s] / studentGradedCredits[s] : 0.0;
+                bands[GpaBand.of(gpa).ordinal()]++;
+                load.merge(studentLoad[s], 1L, Long::sum);
+                if (gpa > 0 && topK > 0 && (topSize < topK || gpa > topGpa[topSize - 1])) {
+                    int pos = Math.min(topSize, topK - 1);
+                    while (pos > 0 && gpa > topGpa[pos - 1]) {
+                        topGpa[pos] = topGpa[pos - 1];
+                        topRow[pos] = topRow[pos - 1];
+                        pos--;
+                    }
+                    topGpa[pos] = gpa;
+                    topRow[pos] = s;
+                    topSize = Math.min(topSize + 1, topK);
+                }
+            }
+
+            EnumMap<GpaBand, Long> distribution = new EnumMap<>(GpaBand.class);
+            for (GpaBand band : BANDS) {
+                distribution.put(band, bands[band.ordinal()]);
+            }
+            List<Student> top = new ArrayList<>(topSize);
+            for (int i = 0; i < topSize; i++) {
+                top.add(students[topRow[i]]);
+            }
+            TreeMap<String, GroupStats> byDepartment = new TreeMap<>();
+            for (int d = 0; d <= departmentCount; d++) {
+                if (groupEnrollments[d] > 0) {
+                    String name = d < departmentCount ? departmentNames.get(d) : StudentAnalytics.UNASSIGNED;
+                    byDepartment.put(name, new GroupStats(groupEnrollments[d], groupGraded[d],
+                            groupGradedCredits[d], groupPoints[d]));
+                }
+            }
+            EnumMap<Semester, GroupStats> bySemester = new EnumMap<>(Semester.class);
+            for (Semester semester : SEMESTERS) {
+                int g = departmentCount + 1 + semester.ordinal();
+                bySemester.put(semester, new GroupStats(groupEnrollments[g], groupGraded[g],
+                        groupGradedCredits[g], groupPoints[g]));
+            }
+            return new AnalyticsReport(count, distribution, top, byDepartment, bySemester, load);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Enrollment totals per course, counting active students only, in the order courses were
+     * first seen. Courses without enrollments are left out.
+     */
+    public Map<Course, GroupStats> courseStats() {
+        lockForScan();
+        try {
+            boolean[] active = activeStudents();
+            long[] enrolled = new long[courseCount];
+            long[] graded = new long[courseCount];
+            long[] gradedCredits = new long[courseCount];
+            double[] points = new double[courseCount];
+            for (int e = 0; e < enrollmentCount; e++) {
+                if (!active[enrollmentStudent[e]]) {
+                    continue;
+                }
+                int course = enrollmentCourse[e];
+                int grade = enrollmentGrade[e];
+                enrolled[course]++;
+                if (grade > 0) {
+                    graded[course]++;
+                    gradedCredits[course] += enrollmentCredits[e];
+                    points[course] += GRADE_POINTS[grade] * enrollmentCredits[e];
+                }
+            }
+            Map<Course, GroupStats> stats = new LinkedHashMap<>();
+            for (int c = 0; c < courseCount; c++) {
+                if (enrolled[c] > 0) {
+                    stats.put(courses[c], new GroupStats(enrolled[c], graded[c], gradedCredits[c], points[c]));
+                }
+            }
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Applies every buffered change, then downgrades to the read lock for the scan itself
+    private void lockForScan() {
+        lock.writeLock().lock();
+        try {
+            applyPending();
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void buffer(Student student, byte kind, Object subject) {
+        int h = System.identityHashCode(student) * 0x9E3779B9;
+        Pending stripe = pending[(h >>> 16) & (STRIPES - 1)];
+        if (stripe.add(kind, subject) >= DRAIN_THRESHOLD && lock.writeLock().tryLock()) {
+            try {
+                applyPending();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    // Write lock held. Stripes are independent: each holds whole students' changes in order.
+    private void applyPending() {
+        for (Pending stripe : pending) {
+            Pending.Batch batch = stripe.take();
+            for (int i = 0; i < batch.size; i++) {
+                apply(batch.kinds[i], batch.subjects[i]);
+            }
+        }
+    }
+
+    private void apply(byte kind, Object subject) {
+        switch (kind) {
+            case ENROLLED:
+                if (enrollmentRows.get(subject) == IdentityIntMap.MISSING) {
+                    addRow((Enrollment) subject);
+                }
+                break;
+            case UNENROLLED: {
+                int row = enrollmentRows.remove(subject);
+                if (row != IdentityIntMap.MISSING) {
+                    removeRow(row);
+                }
+                break;
+            }
+            case GRADED: {
+                // The grade is read now: a later regrade has its own change behind this one
+                int row = enrollmentRows.get(subject);
+                if (row != IdentityIntMap.MISSING) {
+                    enrollmentGrade[row] = gradeByte(((Enrollment) subject).getGrade());
+                }
+                break;
+            }
+            case JOINED:
+                studentRow((Student) subject);
+                break;
+            case LEFT: {
+                int row = studentRows.remove(subject);
+                if (row != IdentityIntMap.MISSING) {
+                    students[row] = null;
+                }
+                break;
+            }
+            default:
+                throw new IllegalStateException("Unknown change kind: " + kind);
+        }
+    }
+
+    // One read of each student's flag per scan; the enrollment loops then stay in the columns
+    private boolean[] activeStudents() {
+        boolean[] active = new boolean[studentCount];
+        for (int s = 0; s < studentCount; s++) {
+            active[s] = students[s] != null && students[s].isActive();
+        }
+        return active;
+    }
+
+    private void addRow(Enrollment enrollment) {
+        int row = enrollmentCount;
+        if (row == enrollments.length) {
+            int capacity = row + (row >> 1) + 1;
+            enrollmentStudent = Arrays.copyOf(enrollmentStudent, capacity);
+            enrollmentCourse = Arrays.copyOf(enrollmentCourse, capacity);
+            enrollmentGrade = Arrays.copyOf(enrollmentGrade, capacity);
+            enrollmentSemester = Arrays.copyOf(enrollmentSemester, capacity);
+            enrollmentCredits = Arrays.copyOf(enrollmentCredits, capacity);
+            enrollments = Arrays.copyOf(enrollments, capacity);
+        }
+        int course = courseRow(enrollment.getCourse());
+        enrollmentStudent[row] = studentRow(enrollment.getStudent());
+        enrollmentCourse[row] = course;
+        enrollmentGrade[row] = gradeByte(enrollment.getGrade());
+        enrollmentSemester[row] = courseSemester[course];
+        enrollmentCredits[row] = courseCredits[course];
+        enrollments[row] = enrollment;
+        enrollmentRows.put(enrollment, row);
+        enrollmentCount++;
+    }
+
+    // Moves the last row into the hole, so the columns stay dense
+    private void removeRow(int row) {
+        int last = --enrollmentCount;
+        if (row != last) {
+            enrollmentStudent[row] = enrollmentStudent[last];
+            enrollmentCourse[row] = enrollmentCourse[last];
+            enrollmentGrade[row] = enrollmentGrade[last];
+            enrollmentSemester[row] = enrollmentSemester[last];
+            enrollmentCredits[row] = enrollmentCredits[last];
+            enrollments[row] = enrollments[last];
+            enrollmentRows.put(enrollments[row], row);
+        }
+        enrollments[last] = null;
+    }
+
+    private int studentRow(Student student) {
+        int row = studentRows.get(student);
+        if (row != IdentityIntMap.MISSING) {
+            return row;
+        }
+        if (studentCount == students.length) {
+            students = Arrays.copyOf(students, studentCount + (studentCount >> 1) + 1);
+        }
+        students[studentCount] = student;
+        studentRows.put(student, studentCount);
+        return studentCount++;
+    }
+
+    private int courseRow(Course course) {
+        int row = courseRows.get(course);
+        if (row != IdentityIntMap.MISSING) {
+            return row;
+        }
+        if (courseCount == courses.length) {
+            int capacity = courseCount + (courseCount >> 1) + 1;
+            courses = Arrays.copyOf(courses, capacity);
+            courseCredits = Arrays.copyOf(courseCredits, capacity);
+            courseSemester = Arrays.copyOf(courseSemester, capacity);
+            courseDepartment = Arrays.copyOf(courseDepartment, capacity);
+        }
+        courses[courseCount] = course;
+        // Course.Builder rejects credits outside 0..Course.MAX_CREDITS, which fits a short
+        courseCredits[courseCount] = (short) course.getCredits();
+        courseSemester[courseCount] = (byte) (course.getSemester() != null ? course.getSemester().ordinal() + 1 : 0);
+        courseDepartment[courseCount] = departmentRow(course.getDepartment());
+        courseRows.put(course, courseCount);
+        return courseCount++;
+    }
+
+    // -1 for courses without a department; scans group those under "Unassigned"
+    private int departmentRow(String department) {
+        if (department == null) {
+            return -1;
+        }
+        Integer row = departmentRows.get(department);
+        if (row == null) {
+            row = departmentNames.size();
+            departmentNames.add(department);
+            departmentRows.put(department, row);
+        }
+        return row;
+    }
+
+    private static byte gradeByte(Grade grade) {
+        return (byte) (grade != null ? grade.ordinal() + 1 : 0);
+    }
+
+    // One stripe of buffered changes, as parallel arrays so buffering allocates nothing per change
+    private static final class Pending {
+        private static final Batch EMPTY = new Batch(new byte[0], new Object[0], 0);
+
+        private byte[] kinds = new byte[16];
+        private Object[] subjects = new Object[16];
+        private int size;
+
+        // Returns the number of changes now buffered
+        synchronized int add(byte kind, Object subject) {
+            if (size == kinds.length) {
+                kinds = Arrays.copyOf(kinds, size * 2);
+                subjects = Arrays.copyOf(subjects, size * 2);
+            }
+            kinds[size] = kind;
+            subjects[size] = subject;
+            return ++size;
+        }
+
+        // Hands over the buffered changes and starts an empty buffer
+        synchronized Batch take() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            Batch batch = new Batch(kinds, subjects, size);
+            kinds = new byte[16];
+            subjects = new Object[16];
+            size = 0;
+            return batch;
+        }
+
+        static final class Batch {
+            final byte[] kinds;
+            final Object[] subjects;
+            final int size;
+
+            Batch(byte[] kinds, Object[] subjects, int size) {
+                this.kinds = kinds;
+                this.subjects = subjects;
+                this.size = size;
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+
+// src/edu/ccrm/report/GpaBand.java
+package edu.ccrm.report;
+
+public enum GpaBand {
+    EXCELLENT("Excellent (9.0+)"),
+    GOOD("Good (7.5-8.9)"),
+    AVERAGE("Average (6.0-7.4)"),
+    BELOW_AVERAGE("Below Average (0.1-5.9)"),
+    NO_GPA("No GPA (0.0)");
+    
+    private final String label;
+    
+    GpaBand(String label) {
+        this.label = label;
+    }
+    
+    public String getLabel() { return label; }
+    
+    public static GpaBand of(double gpa) {
+        if (gpa >= 9.0) return EXCELLENT;
+        if (gpa >= 7.5) return GOOD;
+        if (gpa >= 6.0) return AVERAGE;
+        if (gpa > 0) return BELOW_AVERAGE;
+        return NO_GPA;
+    }
+    
+    @Override
+    public String toString() {
+        return label;
+    }
+}
@@ -0,0 +1,428 @@
+
+// src/edu/ccrm/report/GpaLeaderboard.java
+package edu.ccrm.report;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.EnrollmentListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live GPA rankings, kept up to date from enrollment events.
+ *
+ * There is one global board and one board per course department. A student is ranked on the
+ * global board once they have a GPA above zero. They are ranked on a department board by the
+ * GPA over their graded courses in that department. Ties are broken by registration number,
+ * then by id, so the order does not depend on update order.
+ *
+ * Each board is an order-statistic treap: nodes count their subtree, so placing a standing
+ * and looking up a rank are O(log n), and top-N walks only the first N entries. A board's
+ * monitor is held for one tree operation at a time. An update recomputes one student from
+ * their own enrollments under that student's lock, which StudentService already holds when
+ * it notifies listeners. Students leave the boards when StudentService deactivates them;
+ * top-N also skips students deactivated directly on the domain object.
+ *
+ * rebuild() fills a new set of boards and swaps it in, so readers never see a half-built
+ * board. Updates that arrive meanwhile are applied to both sets.
+ */
+public class GpaLeaderboard implements EnrollmentListener {
+    private static final Comparator<Standing> ORDER = Comparator
+            .comparingDouble(Standing::getGpa).reversed()
+            .thenComparing(s -> s.regNo, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(s -> s.id, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(s -> s.sequence);
+    
+    // The boards served to readers, and while rebuild() runs, the ones it is filling
+    private volatile Boards boards = new Boards();
+    private volatile Boards building;
+    
+    // Last tie-breaker, so two students with the same keys never collapse into one entry
+    private final AtomicLong nextSequence = new AtomicLong();
+    
+    /**
+     * One student's position on a board. Keys are captured when the standing is placed, so a
+     * student edited in place still compares consistently until their next update.
+     */
+    public static final class Standing {
+        private final Student student;
+        private final double gpa;
+        private final String regNo;
+        private final String id;
+        private final String department;
+        private final long sequence;
+        
+        private Standing(Student student, double gpa, String department, long sequence) {
+            this.student = student;
+            this.gpa = gpa;
+            this.regNo = student.getRegNo();
+            this.id = student.getId();
+            this.department = department;
+            this.sequence = sequence;
+        }
+        
+        public Student getStudent() { return student; }
+        public double getGpa() { return gpa; }
+        
+        @Override
+        public String toString() {
+            return String.format("%s (%s) - GPA: %.2f", student.getFullName(), regNo, gpa);
+        }
+    }
+    
+    // Replaces every board with standings computed from the given students
+    public synchronized void rebuild(Collection<Student> students) {
+        Boards fresh = new Boards();
+        building = fresh;
+        for (Student student : students) {
+            synchronized (student) {
+                fresh.unplace(student);
+                fresh.place(student, nextSequence);
+            }
+        }
+        boards = fresh;
+        building = null;
+    }
+    
+    public void update(Student student) {
+        synchronized (student) {
+            // Read building first: if it is null here, rebuild() has not reached this student
+            // yet and will read it after this update releases the lock
+            Boards next = building;
+            Boards current = boards;
+            current.unplace(student);
+            current.place(student, nextSequence);
+            if (next != null && next != current) {
+                next.unplace(student);
+                next.place(student, nextSequence);
+            }
+        }
+    }
+    
+    public void remove(Student student) {
+        synchronized (student) {
+            Boards next = building;
+            Boards current = boards;
+            current.unplace(student);
+            if (next != null && next != current) {
+                next.unplace(student);
+            }
+        }
+    }
+    
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        update(enrollment.getStudent());
+    }
+    
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        update(enrollment.getStudent());
+    }
+    
+    @Override
+    public void graded(Enrollment enrollment, Grade previous) {
+        update(enrollment.getStudent());
+    }
+    
+    @Override
+    public void deactivated(Student student) {
+        remove(student);
+    }
+    
+    @Override
+    public void added(Student student) {
+        update(student);
+    }
+    
+    @Override
+    public void removed(Student student) {
+        remove(student);
+    }
+    
+    @Override
+    public void reloaded(Collection<Student> students) {
+        rebuild(students);
+    }
+    
+    // Highest GPA first; at most n active students
+    public List<Standing> top(int n) {
+        return boards.global.top(n);
+    }
+    
+    public List<Standing> top(String department, int n) {
+        Board board = department != null ? boards.byDepartment.get(fold(department)) : null;
+        return board != null ? board.top(n) : Collections.emptyList();
+    }
+    
+    // 1-based position among ranked students, or 0 if the student is not ranked
+    public int rankOf(Student student) {
+        return rankOf(student, null, boards);
+    }
+    
+    public int rankOf(Student student, String department) {
+        return department != null ? rankOf(student, fold(department), boards) : 0;
+    }
+    
+    // Departments the student holds a standing in, in display form
+    public List<String> departmentsOf(Student student) {
+        Boards current = boards;
+        List<String> departments = new ArrayList<>();
+        for (Standing standing : current.placed.getOrDefault(student, Collections.emptyList())) {
+            String name = standing.department != null ? current.departmentNames.get(standing.department) : null;
+            if (name != null) {
+                departments.add(name);
+            }
+        }
+        return departments;
+    }
+    
+    public Set<String> getDepartments() {
+        return Collections.unmodifiableSet(new TreeSet<>(boards.departmentNames.values()));
+    }
+    
+    private static int rankOf(Student student, String department, Boards current) {
+        if (!student.isActive()) {
+            return 0;
+        }
+        for (Standing standing : current.placed.getOrDefault(student, Collections.emptyList())) {
+            if (department == null ? standing.department == null : department.equals(standing.department)) {
+                Board board = department == null ? current.global : current.byDepartment.get(department);
+                return board != null ? board.rank(standing) : 0;
+            }
+        }
+        return 0;
+    }
+    
+    private static String fold(String department) {
+        return department.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * The global board, the department boards and where each student stands on them.
+     * Department boards are created and dropped inside the map's per-key compute, so a
+     * standing is never added to a board that is being dropped for being empty.
+     */
+    private static final class Boards {
+        final Board global = new Board();
+        final Map<String, Board> byDepartment = new ConcurrentHashMap<>();
+        final Map<String, String> departmentNames = new ConcurrentHashMap<>();
+        
+        // The standings each student currently holds, so they can be removed on the next update
+        final Map<Student, List<Standing>> placed = new ConcurrentHashMap<>();
+        
+        void place(Student student, AtomicLong sequence) {
+            if (!student.isActive()) {
+                return;
+            }
+            List<Standing> standings = new ArrayList<>();
+            double gpa = student.calculateGPA();
+            if (gpa > 0) {
+                Standing standing = new Standing(student, gpa, null, sequence.getAndIncrement());
+                global.add(standing);
+                standings.add(standing);
+            }
+            
+            // Per-department totals over graded courses, credit-weighted like the overall GPA
+            Map<String, double[]> totals = new HashMap<>();
+            Map<String, String> names = new HashMap<>();
+            for (Enrollment enrollment : student.getEnrollments()) {
+                Course course = enrollment.getCourse();
+                if (enrollment.getGrade() == null || course.getDepartment() == null) {
+                    continue;
+                }
+                String key = fold(course.getDepartment());
+                names.putIfAbsent(key, course.getDepartment());
+                double[] sums = totals.computeIfAbsent(key, k -> new double[2]);
+                sums[0] += enrollment.getGrade().getPoints() * course.getCredits();
+                sums[1] += course.getCredits();
+            }
+            totals.forEach((department, sums) -> {
+                double departmentGpa = sums[1] > 0 ? sums[0] / sums[1] : 0.0;
+                if (departmentGpa > 0) {
+                    Standing standing = new Standing(student, departmentGpa, department, sequence.getAndIncrement());
+                    byDepartment.compute(department, (key, board) -> {
+                        Board target = board != null ? board : new Board();
+                        target.add(standing);
+                        departmentNames.putIfAbsent(key, names.get(key));
+                        return target;
+                    });
+                    standings.add(standing);
+                }
+            });
+            
+            if (!standings.isEmpty()) {
+                placed.put(student, standings);
+            }
+        }
+        
+        void unplace(Student student) {
+            List<Standing> standings = placed.remove(student);
+            if (standings == null) {
+                return;
+            }
+            for (Standing standing : standings) {
+                if (standing.department == null) {
+                    global.remove(standing);
+                } else {
+                    byDepartment.computeIfPresent(standing.department, (key, board) -> {
+                        board.remove(standing);
+                        if (!board.isEmpty()) {
+                            return board;
+                        }
+                        departmentNames.remove(key);
+                        return null;
+                    });
+                }
+            }
+        }
+    }
+    
+    /**
+     * Order-statistic treap over standings in ORDER. Every node counts its subtree, so
+     * insert, delete and rank are O(log n) expected; priorities are a hash of the standing's
+     * sequence number, so the shape does not depend on a random generator.
+     */
+    private static final class Board {
+        private Node root;
+        
+        synchronized void add(Standing standing) {
+            Node[] parts = split(root, standing);
+            root = merge(merge(parts[0], new Node(standing)), parts[1]);
+        }
+        
+        synchronized void remove(Standing standing) {
+            root = delete(root, standing);
+        }
+        
+        synchronized boolean isEmpty() {
+            return root == null;
+        }
+        
+        // 1-based position of the standing, or 0 if it is not on this board
+        synchronized int rank(Standing standing) {
+            int ahead = 0;
+            Node node = root;
+            while (node != null) {
+                int order = ORDER.compare(standing, node.standing);
+                if (order == 0) {
+                    return ahead + size(node.left) + 1;
+                }
+                if (order < 0) {
+                    node = node.left;
+                } else {
+                    ahead += size(node.left) + 1;
+                    node = node.right;
+                }
+            }
+            return 0;
+        }
+        
+        // In-order walk that stops after n active students
+        synchronized List<Standing> top(int n) {
+            List<Standing> result = new ArrayList<>(Math.max(0, Math.min(n, 64)));
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            while ((node != null || !path.isEmpty()) && result.size() < n) {
+                if (node != null) {
+                    path.add(node);
+                    node = node.left;
+                } else {
+                    node = path.remove(path.size() - 1);
+                    if (node.standing.student.isActive()) {
+                        result.add(node.standing);
+                    }
+                    node = node.right;
+                }
+            }
+            return result;
+        }
+        
+        // Splits into the standings ordered before the key and the rest
+        private static Node[] split(Node node, Standing key) {
+            if (node == null) {
+                return new Node[2];
+            }
+            if (ORDER.compare(node.standing, key) < 0) {
+                Node[] parts = split(node.right, key);
+                node.right = parts[0];
+                parts[0] = node.resize();
+                return parts;
+            }
+            Node[] parts = split(node.left, key);
+            node.left = parts[1];
+            parts[1] = node.resize();
+            return parts;
+        }
+        
+        private static Node merge(Node left, Node right) {
+            if (left == null) {
+                return right;
+            }
+            if (right == null) {
+                return left;
+            }
+            if (left.priority > right.priority) {
+                left.right = merge(left.right, right);
+                return left.resize();
+            }
+            right.left = merge(left, right.left);
+            return right.resize();
+        }
+        
+        private static Node delete(Node node, Standing standing) {
+            if (node == null) {
+                return null;
+            }
+            int order = ORDER.compare(standing, node.standing);
+            if (order == 0) {
+                return merge(node.left, node.right);
+            }
+            if (order < 0) {
+                node.left = delete(node.left, standing);
+            } else {
+                node.right = delete(node.right, standing);
+            }
+            return node.resize();
+        }
+        
+        private static int size(Node node) {
+            return node == null ? 0 : node.size;
+        }
+        
+        private static final class Node {
+            final Standing standing;
+            final long priority;
+            Node left;
+            Node right;
+            int size = 1;
+            
+            Node(Standing standing) {
+                this.standing = standing;
+                // SplitMix64 finalizer
+                long z = standing.sequence * 0x9E3779B97F4A7C15L;
+                z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+                z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+                this.priority = z ^ (z >>> 31);
+            }
+            
+            Node resize() {
+                size = 1 + size(left) + size(right);
+                return this;
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+
+// src/edu/ccrm/report/GroupStats.java
+package edu.ccrm.report;
+
+/**
+ * Enrollment totals for one department or semester.
+ */
+public class GroupStats {
+    private long enrollments;
+    private long gradedEnrollments;
+    private long gradedCredits;
+    private double gradePoints;
+    
+    GroupStats() {
+    }
+    
+    // Totals already summed elsewhere, such as by ColumnarStore's column scans
+    GroupStats(long enrollments, long gradedEnrollments, long gradedCredits, double gradePoints) {
+        this.enrollments = enrollments;
+        this.gradedEnrollments = gradedEnrollments;
+        this.gradedCredits = gradedCredits;
+        this.gradePoints = gradePoints;
+    }
+    
+    void add(int credits, double points, boolean graded) {
+        enrollments++;
+        if (graded) {
+            gradedEnrollments++;
+            gradedCredits += credits;
+            gradePoints += points * credits;
+        }
+    }
+    
+    void merge(GroupStats other) {
+        enrollments += other.enrollments;
+        gradedEnrollments += other.gradedEnrollments;
+        gradedCredits += other.gradedCredits;
+        gradePoints += other.gradePoints;
+    }
+    
+    public long getEnrollments() { return enrollments; }
+    public long getGradedEnrollments() { return gradedEnrollments; }
+    public long getGradedCredits() { return gradedCredits; }
+    
+    // Credit-weighted, the same way a student's GPA is
+    public double getAverageGradePoints() {
+        return gradedCredits > 0 ? gradePoints / gradedCredits : 0.0;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("enrollments=%d, graded=%d, average=%.2f",
+                enrollments, gradedEnrollments, getAverageGradePoints());
+    }
+}
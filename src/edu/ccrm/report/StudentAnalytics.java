@@ -0,0 +1,261 @@
+
+// src/edu/ccrm/report/StudentAnalytics.java
+package edu.ccrm.report;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.domain.Student;
+import edu.ccrm.service.ReadView;
+import edu.ccrm.service.StudentRecord;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntFunction;
+
+/**
+ * Computes every student report in one pass over the roster.
+ *
+ * The list is split into ranges on a fork/join pool. Each leaf task reads each student and
+ * enrollment once and fills a private Partial, and partials are merged as the tasks join,
+ * so no shared state is written during the scan. Inactive students are skipped, which
+ * matches getAllStudents. A ReadView is scanned through its StudentRecords, so only the
+ * top students are ever built as Student objects.
+ */
+public class StudentAnalytics {
+    public static final int DEFAULT_TOP_K = 5;
+    static final String UNASSIGNED = "Unassigned";
+    
+    private static final GpaBand[] BANDS = GpaBand.values();
+    private static final Semester[] SEMESTERS = Semester.values();
+    private static final int MIN_SPLIT = 4096;
+    
+    private final ForkJoinPool pool;
+    
+    public StudentAnalytics() {
+        this(ForkJoinPool.commonPool());
+    }
+    
+    public StudentAnalytics(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+    
+    public AnalyticsReport analyze(List<Student> students) {
+        return analyze(students, DEFAULT_TOP_K);
+    }
+    
+    public AnalyticsReport analyze(List<Student> students, int topK) {
+        List<Student> roster = students instanceof RandomAccess ? students : new ArrayList<>(students);
+        return scan(roster, Partial::add, topK).toReport(roster::get);
+    }
+    
+    public AnalyticsReport analyze(ReadView view) {
+        return analyze(view, DEFAULT_TOP_K);
+    }
+    
+    public AnalyticsReport analyze(ReadView view, int topK) {
+        List<StudentRecord> records = view.getRecords();
+        return scan(records, Partial::add, topK).toReport(i -> records.get(i).toStudent());
+    }
+    
+    private <T> Partial scan(List<T> roster, Reader<T> reader, int topK) {
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK must not be negative: " + topK);
+        }
+        // A few ranges per worker so uneven enrollment counts still balance out
+        int split = Math.max(MIN_SPLIT, roster.size() / (pool.getParallelism() * 4 + 1));
+        return pool.invoke(new ScanTask<>(roster, reader, 0, roster.size(), split, topK));
+    }
+    
+    // Adds one roster entry to a partial
+    private interface Reader<T> {
+        void add(Partial partial, T entry, int index);
+    }
+    
+    private static final class ScanTask<T> extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+        
+        private final List<T> roster;
+        private final Reader<T> reader;
+        private final int from;
+        private final int to;
+        private final int split;
+        private final int topK;
+        
+        ScanTask(List<T> roster, Reader<T> reader, int from, int to, int split, int topK) {
+            this.roster = roster;
+            this.reader = reader;
+            this.from = from;
+            this.to = to;
+            this.split = split;
+            this.topK = topK;
+        }
+        
+        @Override
+        protected Partial compute() {
+            if (to - from <= split) {
+                Partial partial = new Partial(topK);
+                for (int i = from; i < to; i++) {
+                    reader.add(partial, roster.get(i), i);
+                }
+                return partial;
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask<T> left = new ScanTask<>(roster, reader, from, mid, split, topK);
+            left.fork();
+            Partial right = new ScanTask<>(roster, reader, mid, to, split, topK).compute();
+            return left.join().merge(right);
+        }
+    }
+    
+    /**
+     * Aggregates for one range of the roster.
+     */
+    private static final class Partial {
+        private final long[] bands = new long[BANDS.length];
+        private final Map<String, GroupStats> departments = new HashMap<>();
+        private final GroupStats[] semesters = new GroupStats[SEMESTERS.length];
+        private long[] creditLoad = new long[32];
+        private long students;
+        
+        // Best entries first: higher GPA, then lower roster index
+        private final int topK;
+        private final double[] topGpa;
+        private final int[] topIndex;
+        private int topSize;
+        
+        Partial(int topK) {
+            this.topK = topK;
+            this.topGpa = new double[topK];
+            this.topIndex = new int[topK];
+            for (int i = 0; i < semesters.length; i++) {
+                semesters[i] = new GroupStats();
+            }
+        }
+        
+        void add(Student student, int index) {
+            if (!student.isActive()) {
+                return;
+            }
+            int load = 0;
+            for (Enrollment enrollment : student.getEnrollments()) {
+                load += addEnrollment(enrollment.getCourse(), enrollment.getGrade());
+            }
+            addStudent(student.calculateGPA(), index, load);
+        }
+        
+        void add(StudentRecord record, int index) {
+            if (!record.isActive()) {
+                return;
+            }
+            int load = 0;
+            for (int i = 0; i < record.getEnrollmentCount(); i++) {
+                load += addEnrollment(record.getCourse(i), record.getGrade(i));
+            }
+            addStudent(record.getGpa(), index, load);
+        }
+        
+        private void addStudent(double gpa, int index, int load) {
+            students++;
+            bands[GpaBand.of(gpa).ordinal()]++;
+            if (gpa > 0) {
+                offerTop(gpa, index);
+            }
+            addLoad(load, 1);
+        }
+        
+        // Returns the enrollment's credits, for the student's load
+        private int addEnrollment(Course course, Grade grade) {
+            int credits = course.getCredits();
+            double points = grade != null ? grade.getPoints() : 0.0;
+            String department = course.getDepartment() != null ? course.getDepartment() : UNASSIGNED;
+            departments.computeIfAbsent(department, d -> new GroupStats()).add(credits, points, grade != null);
+            if (course.getSemester() != null) {
+                semesters[course.getSemester().ordinal()].add(credits, points, grade != null);
+            }
+            return credits;
+        }
+        
+        Partial merge(Partial other) {
+            students += other.students;
+            for (int i = 0; i < bands.length; i++) {
+                bands[i] += other.bands[i];
+            }
+            for (int i = 0; i < other.topSize; i++) {
+                offerTop(other.topGpa[i], other.topIndex[i]);
+            }
+            other.departments.forEach((department, stats) ->
+                    departments.merge(department, stats, (mine, theirs) -> { mine.merge(theirs); return mine; }));
+            for (int i = 0; i < semesters.length; i++) {
+                semesters[i].merge(other.semesters[i]);
+            }
+            for (int load = 0; load < other.creditLoad.length; load++) {
+                if (other.creditLoad[load] != 0) {
+                    addLoad(load, other.creditLoad[load]);
+                }
+            }
+            return this;
+        }
+        
+        private void addLoad(int load, long count) {
+            if (load >= creditLoad.length) {
+                creditLoad = Arrays.copyOf(creditLoad, Math.max(creditLoad.length * 2, load + 1));
+            }
+            creditLoad[load] += count;
+        }
+        
+        // Insertion into a small sorted array; K is a handful, so this beats a heap
+        private void offerTop(double gpa, int index) {
+            int pos = topSize;
+            while (pos > 0 && ranksBefore(gpa, index, topGpa[pos - 1], topIndex[pos - 1])) {
+                pos--;
+            }
+            if (pos >= topK) {
+                return;
+            }
+            int last = Math.min(topSize, topK - 1);
+            System.arraycopy(topGpa, pos, topGpa, pos + 1, last - pos);
+            System.arraycopy(topIndex, pos, topIndex, pos + 1, last - pos);
+            topGpa[pos] = gpa;
+            topIndex[pos] = index;
+            topSize = Math.min(topSize + 1, topK);
+        }
+        
+        private static boolean ranksBefore(double gpa, int index, double otherGpa, int otherIndex) {
+            int byGpa = Double.compare(gpa, otherGpa);
+            return byGpa > 0 || (byGpa == 0 && index < otherIndex);
+        }
+        
+        // topStudent builds the student at a roster index
+        AnalyticsReport toReport(IntFunction<Student> topStudent) {
+            EnumMap<GpaBand, Long> distribution = new EnumMap<>(GpaBand.class);
+            for (GpaBand band : BANDS) {
+                distribution.put(band, bands[band.ordinal()]);
+            }
+            List<Student> top = new ArrayList<>(topSize);
+            for (int i = 0; i < topSize; i++) {
+                top.add(topStudent.apply(topIndex[i]));
+            }
+            EnumMap<Semester, GroupStats> bySemester = new EnumMap<>(Semester.class);
+            for (Semester semester : SEMESTERS) {
+                bySemester.put(semester, semesters[semester.ordinal()]);
+            }
+            TreeMap<Integer, Long> load = new TreeMap<>();
+            for (int credits = 0; credits < creditLoad.length; credits++) {
+                if (creditLoad[credits] != 0) {
+                    load.put(credits, creditLoad[credits]);
+                }
+            }
+            return new AnalyticsReport(students, distribution, top, new TreeMap<>(departments), bySemester, load);
+        }
+    }
+}
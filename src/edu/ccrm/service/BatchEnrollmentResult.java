@@ -0,0 +1,39 @@
+
+// src/edu/ccrm/service/BatchEnrollmentResult.java
+package edu.ccrm.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-row results of a batch, in request order, with counts by status.
+ */
+public final class BatchEnrollmentResult {
+    private final List<EnrollmentResult> results;
+    private final Map<EnrollmentResult.Status, Long> counts = new EnumMap<>(EnrollmentResult.Status.class);
+    private final long elapsedNanos;
+    
+    BatchEnrollmentResult(List<EnrollmentResult> results, long elapsedNanos) {
+        this.results = Collections.unmodifiableList(results);
+        this.elapsedNanos = elapsedNanos;
+        for (EnrollmentResult.Status status : EnrollmentResult.Status.values()) {
+            counts.put(status, 0L);
+        }
+        for (EnrollmentResult result : results) {
+            counts.merge(result.getStatus(), 1L, Long::sum);
+        }
+    }
+    
+    public List<EnrollmentResult> getResults() { return results; }
+    public int size() { return results.size(); }
+    public long count(EnrollmentResult.Status status) { return counts.get(status); }
+    public Map<EnrollmentResult.Status, Long> getCounts() { return Collections.unmodifiableMap(counts); }
+    public long getElapsedNanos() { return elapsedNanos; }
+    
+    // Wall-clock cost of one row, averaged over the batch
+    public double getNanosPerRow() {
+        return results.isEmpty() ? 0.0 : (double) elapsedNanos / results.size();
+    }
+}
@@ -0,0 +1,249 @@
+
+// src/edu/ccrm/service/CourseCatalog.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseKey;
+import edu.ccrm.domain.Semester;
+import edu.ccrm.util.CourseCode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Course store with one index per catalog query. The code indexes cover every course;
+ * the secondary indexes only hold active courses, so a query costs the size of its result.
+ * Each held course reports direct setActive calls back to the catalog, which moves it in
+ * or out of the secondary indexes and the active count.
+ */
+class CourseCatalog {
+    private final Map<Course, IndexedKeys> courses = new LinkedHashMap<>();
+    private final Map<CourseCode, Set<Course>> byCode = new HashMap<>();
+    private final Map<CourseKey, Set<Course>> byKey = new HashMap<>();
+
+    private final Map<Semester, Set<Course>> bySemester = new EnumMap<>(Semester.class);
+    private final Map<String, Set<Course>> byDepartment = new HashMap<>();
+    private final Map<String, Set<Course>> byInstructor = new HashMap<>();
+    private final NavigableMap<Integer, Set<Course>> byCredits = new TreeMap<>();
+    private final Consumer<Course> activeListener = this::activeChanged;
+    private int activeCount;
+
+    public synchronized void add(Course course) {
+        unindex(course);
+        IndexedKeys keys = new IndexedKeys(course);
+        courses.put(course, keys);
+        course.setActiveListener(activeListener);
+        addTo(byCode, keys.code, course);
+        addTo(byKey, keys.key, course);
+        if (keys.active) {
+            activeCount++;
+            addTo(bySemester, keys.semester, course);
+            addTo(byDepartment, keys.department, course);
+            addTo(byInstructor, keys.instructorId, course);
+            addTo(byCredits, keys.credits, course);
+        }
+    }
+
+    // Same contract as the old removeIf + add: every course sharing the code is dropped first
+    // Returns the other courses that were dropped
+    public synchronized List<Course> replace(Course course) {
+        List<Course> removed = new ArrayList<>();
+        Set<Course> sameCode = byCode.get(course.getCode());
+        if (sameCode != null) {
+            for (Course existing : new ArrayList<>(sameCode)) {
+                unindex(existing);
+                courses.remove(existing);
+                release(existing);
+                if (existing != course) {
+                    removed.add(existing);
+                }
+            }
+        }
+        add(course);
+        return removed;
+    }
+
+    public synchronized Course deactivate(CourseCode code) {
+        Course course = findByCode(code);
+        if (course != null) {
+            // The active listener moves it out of the secondary indexes
+            course.setActive(false);
+        }
+        return course;
+    }
+
+    public synchronized void clear() {
+        courses.keySet().forEach(this::release);
+        courses.clear();
+        byCode.clear();
+        byKey.clear();
+        bySemester.clear();
+        byDepartment.clear();
+        byInstructor.clear();
+        byCredits.clear();
+        activeCount = 0;
+    }
+
+    public synchronized Course findByCode(CourseCode code) {
+        return firstActive(byCode.get(code));
+    }
+
+    public synchronized Course findByKey(CourseKey key) {
+        return firstActive(byKey.get(key));
+    }
+
+    // The active course if there is one, otherwise the first inactive one
+    public synchronized Course findAnyByKey(CourseKey key) {
+        Set<Course> bucket = byKey.get(key);
+        Course active = firstActive(bucket);
+        return active != null || bucket == null ? active : bucket.iterator().next();
+    }
+
+    public synchronized List<Course> findBySemester(Semester semester) {
+        return activeCopy(bySemester.get(semester));
+    }
+
+    public synchronized List<Course> findByDepartment(String department) {
+        return activeCopy(byDepartment.get(foldCase(department)));
+    }
+
+    public synchronized List<Course> findByInstructor(String instructorId) {
+        return activeCopy(byInstructor.get(instructorId));
+    }
+
+    public synchronized List<Course> findByCredits(int minCredits, int maxCredits) {
+        List<Course> result = new ArrayList<>();
+        if (minCredits > maxCredits) {
+            return result;
+        }
+        for (Set<Course> bucket : byCredits.subMap(minCredits, true, maxCredits, true).values()) {
+            addActive(bucket, result);
+        }
+        return result;
+    }
+
+    public synchronized int countByDepartment(String department) {
+        return findByDepartment(department).size();
+    }
+
+    public synchronized int activeCount() {
+        return activeCount;
+    }
+
+    public synchronized List<Course> values() {
+        return new ArrayList<>(courses.keySet());
+    }
+
+    public synchronized List<Course> activeValues() {
+        return activeCopy(courses.keySet());
+    }
+
+    private void unindex(Course course) {
+        IndexedKeys keys = courses.get(course);
+        if (keys == null) {
+            return;
+        }
+        removeFrom(byCode, keys.code, course);
+        removeFrom(byKey, keys.key, course);
+        if (keys.active) {
+            activeCount--;
+            removeFrom(bySemester, keys.semester, course);
+            removeFrom(byDepartment, keys.department, course);
+            removeFrom(byInstructor, keys.instructorId, course);
+            removeFrom(byCredits, keys.credits, course);
+        }
+    }
+
+    // Re-files a course whose active flag was flipped directly on the domain object
+    private synchronized void activeChanged(Course course) {
+        IndexedKeys keys = courses.get(course);
+        if (keys != null && keys.active != course.isActive()) {
+            add(course);
+        }
+    }
+
+    private void release(Course course) {
+        if (course.getActiveListener() == activeListener) {
+            course.setActiveListener(null);
+        }
+    }
+
+    private static <K> void addTo(Map<K, Set<Course>> index, K key, Course course) {
+        if (key != null) {
+            index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(course);
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Course>> index, K key, Course course) {
+        Set<Course> bucket = key == null ? null : index.get(key);
+        if (bucket != null && bucket.remove(course) && bucket.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Course firstActive(Collection<Course> bucket) {
+        if (bucket != null) {
+            for (Course course : bucket) {
+                if (course.isActive()) {
+                    return course;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Course> activeCopy(Collection<Course> bucket) {
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        List<Course> result = new ArrayList<>(bucket.size());
+        addActive(bucket, result);
+        return result;
+    }
+
+    // The flag flips before the listener re-files the course, so re-check on the way out
+    private static void addActive(Collection<Course> bucket, List<Course> result) {
+        for (Course course : bucket) {
+            if (course.isActive()) {
+                result.add(course);
+            }
+        }
+    }
+
+    static String foldCase(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    // Keys a course was indexed under; courses are edited in place before updateCourse
+    private static final class IndexedKeys {
+        final CourseCode code;
+        final CourseKey key;
+        final Semester semester;
+        final String department;
+        final String instructorId;
+        final int credits;
+        final boolean active;
+
+        IndexedKeys(Course course) {
+            this.code = course.getCode();
+            this.key = CourseKey.of(course);
+            this.semester = course.getSemester();
+            this.department = foldCase(course.getDepartment());
+            this.instructorId = course.getInstructor() != null ? course.getInstructor().getId() : null;
+            this.credits = course.getCredits();
+            this.active = course.isActive();
+        }
+    }
+}
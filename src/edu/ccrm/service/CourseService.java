@@ -3,111 +3,148 @@
 package edu.ccrm.service;
 
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.CourseKey;
 import edu.ccrm.domain.Instructor;
 import edu.ccrm.domain.Semester;
+import edu.ccrm.metrics.LatencyHistogram;
+import edu.ccrm.metrics.Metrics;
 import edu.ccrm.util.CourseCode;
 
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class CourseService implements Searchable<Course> {
-    private List<Course> courses;
+    private final CourseCatalog courses;
+    private final SearchIndex<Course> searchIndex;
+    
+    private static final LatencyHistogram LOOKUP_TIMER = Metrics.timer("course.lookup", 64);
+    private static final LatencyHistogram SEARCH_TIMER = Metrics.timer("course.search");
     
     public CourseService() {
-        this.courses = new ArrayList<>();
+        this.courses = new CourseCatalog();
+        this.searchIndex = new SearchIndex<>(
+                c -> new String[] {
+                        c.getTitle(),
+                        c.getCode().toString(),
+                        c.getDepartment(),
+                        c.getInstructor() != null ? c.getInstructor().getFullName() : null },
+                Course::isActive);
     }
     
     public void addCourse(Course course) {
         courses.add(course);
+        reindex(course);
+    }
+    
+    public void replaceAllCourses(Collection<Course> loaded) {
+        courses.clear();
+        searchIndex.clear();
+        for (Course course : loaded) {
+            addCourse(course);
+        }
     }
     
     public Course getCourseByCode(CourseCode code) {
-        return courses.stream()
-                .filter(c -> c.getCode().equals(code) && c.isActive())
-                .findFirst()
-                .orElse(null);
+        long start = LOOKUP_TIMER.startSample();
+        Course course = courses.findByCode(code);
+        LOOKUP_TIMER.stopSample(start);
+        return course;
+    }
+    
+    public Course getCourseByCodeAndSemester(CourseCode code, Semester semester) {
+        long start = LOOKUP_TIMER.startSample();
+        Course course = courses.findByKey(new CourseKey(code, semester));
+        LOOKUP_TIMER.stopSample(start);
+        return course;
+    }
+    
+    // Inactive courses included, for restoring recorded state such as the enrollment journal
+    public Course getCourseIncludingInactive(CourseCode code, Semester semester) {
+        return courses.findAnyByKey(new CourseKey(code, semester));
     }
     
     public List<Course> getAllCourses() {
-        return courses.stream()
-                .filter(Course::isActive)
-                .collect(Collectors.toList());
+        return courses.activeValues();
+    }
+    
+    // Every course, inactive ones included, in insertion order
+    public List<Course> getCourseSnapshot() {
+        return courses.values();
     }
     
     public void updateCourse(Course course) {
-        courses.removeIf(c -> c.getCode().equals(course.getCode()));
-        courses.add(course);
+        for (Course removed : courses.replace(course)) {
+            searchIndex.remove(removed);
+        }
+        reindex(course);
     }
     
     public void deactivateCourse(CourseCode code) {
-        Course course = getCourseByCode(code);
+        Course course = courses.deactivate(code);
         if (course != null) {
-            course.setActive(false);
+            searchIndex.remove(course);
         }
     }
     
     public List<Course> getCoursesByInstructor(Instructor instructor) {
-        return courses.stream()
-                .filter(c -> c.isActive() && c.getInstructor() != null && 
-                             c.getInstructor().getId().equals(instructor.getId()))
-                .collect(Collectors.toList());
+        return courses.findByInstructor(instructor.getId());
     }
     
     public List<Course> getCoursesByDepartment(String department) {
-        return courses.stream()
-                .filter(c -> c.isActive() && c.getDepartment() != null && 
-                             c.getDepartment().equalsIgnoreCase(department))
-                .collect(Collectors.toList());
+        return courses.findByDepartment(department);
     }
     
     public List<Course> getCoursesBySemester(Semester semester) {
-        return courses.stream()
-                .filter(c -> c.isActive() && c.getSemester() == semester)
-                .collect(Collectors.toList());
+        return courses.findBySemester(semester);
     }
     
     @Override
     public List<Course> search(String query) {
-        String searchTerm = query.toLowerCase();
-        return courses.stream()
-                .filter(c -> c.isActive() && 
-                        (c.getTitle().toLowerCase().contains(searchTerm) ||
-                         c.getCode().toString().toLowerCase().contains(searchTerm) ||
-                         (c.getDepartment() != null && c.getDepartment().toLowerCase().contains(searchTerm)) ||
-                         (c.getInstructor() != null && c.getInstructor().getFullName().toLowerCase().contains(searchTerm))))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<Course> found = searchIndex.search(query);
+        SEARCH_TIMER.recordSince(start);
+        return found;
+    }
+    
+    @Override
+    public List<Course> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<Course> found = searchIndex.search(query, limit);
+        SEARCH_TIMER.recordSince(start);
+        return found;
+    }
+    
+    // CONTAINS keeps the original substring-of-any-field behaviour
+    public void setSearchMode(SearchIndex.Mode mode) {
+        searchIndex.setMode(mode);
+    }
+    
+    private void reindex(Course course) {
+        if (course.isActive()) {
+            searchIndex.put(course);
+        } else {
+            searchIndex.remove(course);
+        }
     }
     
     // Additional utility methods
     public List<Course> getCoursesByCredits(int minCredits, int maxCredits) {
-        return courses.stream()
-                .filter(c -> c.isActive() && c.getCredits() >= minCredits && c.getCredits() <= maxCredits)
-                .collect(Collectors.toList());
+        return courses.findByCredits(minCredits, maxCredits);
     }
     
     public int getTotalActiveCourses() {
-        return (int) courses.stream()
-                .filter(Course::isActive)
-                .count();
+        return courses.activeCount();
     }
     
     public int getTotalCoursesByDepartment(String department) {
-        return (int) courses.stream()
-                .filter(c -> c.isActive() && c.getDepartment() != null && 
-                             c.getDepartment().equalsIgnoreCase(department))
-                .count();
+        return courses.countByDepartment(department);
     }
     
     // Method to demonstrate stream operations with aggregation
     public void displayCourseStatistics() {
-        long totalCourses = courses.stream().filter(Course::isActive).count();
-        long csCourses = courses.stream()
-                .filter(c -> c.isActive() && "Computer Science".equalsIgnoreCase(c.getDepartment()))
-                .count();
-        long mathCourses = courses.stream()
-                .filter(c -> c.isActive() && "Mathematics".equalsIgnoreCase(c.getDepartment()))
-                .count();
+        long totalCourses = courses.activeCount();
+        long csCourses = courses.countByDepartment("Computer Science");
+        long mathCourses = courses.countByDepartment("Mathematics");
         
         System.out.println("Course Statistics:");
         System.out.println("Total Active Courses: " + totalCourses);
@@ -115,8 +152,7 @@ public class CourseService implements Searchable<Course> {
         System.out.println("Mathematics Courses: " + mathCourses);
         
         // Demonstrate stream aggregation with averaging
-        double avgCredits = courses.stream()
-                .filter(Course::isActive)
+        double avgCredits = courses.activeValues().stream()
                 .mapToInt(Course::getCredits)
                 .average()
                 .orElse(0.0);
@@ -0,0 +1,380 @@
+
+// src/edu/ccrm/service/EnrollmentIndex.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+import edu.ccrm.util.IdentityIntMap;
+import edu.ccrm.util.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-way enrollment adjacency: course to students and student to courses.
+ *
+ * Students and courses get int ids on first sight. Each course keeps a roster: an IntList of
+ * student ids with a parallel IntList of grades (ordinal + 1, 0 for none), plus the slot of
+ * every enrollment in it, so removing or grading an edge does not search the roster. Removed
+ * slots are left empty and squeezed out once they outnumber the live ones, which keeps rosters
+ * in enrollment order. Each student keeps an IntList of course ids. A roster, headcount or
+ * grade distribution is then a walk over one course's lists instead of every student's
+ * enrollments.
+ *
+ * Kept in sync from enrollment events, which StudentService sends under the student's lock.
+ * Nothing is shared across courses on that path: a roster has its own monitor, course ids are
+ * looked up in a copy-on-write table, and student ids live in STRIPES tables, each with its
+ * own monitor held for one lookup or update. Ids are not reused, and a student or course that
+ * loses all its enrollments keeps its (empty) lists until the next rebuild.
+ *
+ * rebuild() fills a new index and swaps it in; events that arrive meanwhile go to both.
+ */
+public class EnrollmentIndex implements EnrollmentListener {
+    private static final Grade[] GRADES = Grade.values();
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+    private static final int REMOVED = -1;
+
+    // The index served to queries, and while rebuild() runs, the one it is filling
+    private volatile State state = new State();
+    private volatile State building;
+
+    // Replaces the contents with the given students and their enrollments
+    public synchronized void rebuild(Collection<Student> roster) {
+        State fresh = new State();
+        building = fresh;
+        for (Student student : roster) {
+            synchronized (student) {
+                for (Enrollment enrollment : student.getEnrollments()) {
+                    fresh.addEdge(enrollment);
+                }
+            }
+        }
+        state = fresh;
+        building = null;
+    }
+
+    // Events run under the student's lock. Read building first: if it is null here, rebuild()
+    // has not reached this student yet and will read it after the lock is released.
+    @Override
+    public void enrolled(Enrollment enrollment) {
+        State next = building;
+        State current = state;
+        current.addEdge(enrollment);
+        if (next != null && next != current) {
+            next.addEdge(enrollment);
+        }
+    }
+
+    @Override
+    public void unenrolled(Enrollment enrollment) {
+        State next = building;
+        State current = state;
+        current.removeEdge(enrollment);
+        if (next != null && next != current) {
+            next.removeEdge(enrollment);
+        }
+    }
+
+    @Override
+    public void graded(Enrollment enrollment, Grade previous) {
+        State next = building;
+        State current = state;
+        current.gradeEdge(enrollment);
+        if (next != null && next != current) {
+            next.gradeEdge(enrollment);
+        }
+    }
+
+    @Override
+    public void reloaded(Collection<Student> reloadedStudents) {
+        rebuild(reloadedStudents);
+    }
+
+    // Students enrolled in the course, in enrollment order
+    public List<Student> getRoster(Course course) {
+        State current = state;
+        Roster roster = current.roster(course, false);
+        if (roster == null) {
+            return Collections.emptyList();
+        }
+        int[] ids = roster.studentIds();
+        List<Student> students = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            students.add(current.student(id));
+        }
+        return students;
+    }
+
+    public int getHeadcount(Course course) {
+        Roster roster = state.roster(course, false);
+        return roster == null ? 0 : roster.headcount();
+    }
+
+    // Graded enrollments per grade; ungraded students are the headcount minus the total
+    public Map<Grade, Long> getGradeDistribution(Course course) {
+        Roster roster = state.roster(course, false);
+        long[] counts = roster == null ? new long[GRADES.length + 1] : roster.gradeCounts();
+        Map<Grade, Long> distribution = new EnumMap<>(Grade.class);
+        for (Grade grade : GRADES) {
+            distribution.put(grade, counts[grade.ordinal() + 1]);
+        }
+        return distribution;
+    }
+
+    // Courses the student is enrolled in, in enrollment order
+    public List<Course> getCourses(Student student) {
+        State current = state;
+        int[] ids = current.stripeOf(student).courses(student);
+        List<Course> enrolled = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            enrolled.add(current.courses.rosters[id].course);
+        }
+        return enrolled;
+    }
+
+    private static int gradeCode(Grade grade) {
+        return grade == null ? 0 : grade.ordinal() + 1;
+    }
+
+    /**
+     * One complete index: the student stripes and the course table.
+     */
+    private static final class State {
+        private final StudentStripe[] stripes = new StudentStripe[STRIPES];
+
+        // Replaced, never modified, when a course is first seen; writers hold this State's monitor
+        private volatile CourseTable courses = new CourseTable(new IdentityIntMap<>(), new Roster[0]);
+
+        State() {
+            for (int i = 0; i < STRIPES; i++) {
+                stripes[i] = new StudentStripe(i);
+            }
+        }
+
+        void addEdge(Enrollment enrollment) {
+            Roster roster = roster(enrollment.getCourse(), true);
+            StudentStripe stripe = stripeOf(enrollment.getStudent());
+            int student = stripe.id(enrollment.getStudent());
+            if (roster.add(enrollment, student, gradeCode(enrollment.getGrade()))) {
+                stripe.addCourse(student, roster.id);
+            }
+        }
+
+        void removeEdge(Enrollment enrollment) {
+            Roster roster = roster(enrollment.getCourse(), false);
+            if (roster != null && roster.remove(enrollment)) {
+                stripeOf(enrollment.getStudent()).removeCourse(enrollment.getStudent(), roster.id);
+            }
+        }
+
+        void gradeEdge(Enrollment enrollment) {
+            Roster roster = roster(enrollment.getCourse(), false);
+            if (roster != null) {
+                roster.grade(enrollment, gradeCode(enrollment.getGrade()));
+            }
+        }
+
+        Roster roster(Course course, boolean create) {
+            CourseTable table = courses;
+            int id = table.ids.get(course);
+            if (id != IdentityIntMap.MISSING) {
+                return table.rosters[id];
+            }
+            if (!create) {
+                return null;
+            }
+            synchronized (this) {
+                table = courses;
+                id = table.ids.get(course);
+                if (id != IdentityIntMap.MISSING) {
+                    return table.rosters[id];
+                }
+                id = table.rosters.length;
+                IdentityIntMap<Course> ids = new IdentityIntMap<>(table.ids);
+                ids.put(course, id);
+                Roster[] rosters = Arrays.copyOf(table.rosters, id + 1);
+                rosters[id] = new Roster(id, course);
+                courses = new CourseTable(ids, rosters);
+                return rosters[id];
+            }
+        }
+
+        StudentStripe stripeOf(Student student) {
+            int h = System.identityHashCode(student) * 0x9E3779B9;
+            return stripes[(h >>> 16) & (STRIPES - 1)];
+        }
+
+        Student student(int id) {
+            return stripes[id & (STRIPES - 1)].student(id >>> STRIPE_BITS);
+        }
+    }
+
+    private static final class CourseTable {
+        final IdentityIntMap<Course> ids;
+        final Roster[] rosters;
+
+        CourseTable(IdentityIntMap<Course> ids, Roster[] rosters) {
+            this.ids = ids;
+            this.rosters = rosters;
+        }
+    }
+
+    /**
+     * One course's students in enrollment order. Slots of removed enrollments hold REMOVED
+     * until compact() squeezes them out and renumbers the remaining slots.
+     */
+    private static final class Roster {
+        final int id;
+        final Course course;
+        private final IntList students = new IntList();
+        private final IntList grades = new IntList();
+        private final IdentityIntMap<Enrollment> slots = new IdentityIntMap<>();
+        private final long[] gradeCounts = new long[GRADES.length + 1];
+        private int live;
+
+        Roster(int id, Course course) {
+            this.id = id;
+            this.course = course;
+        }
+
+        // False if the enrollment is already on the roster
+        synchronized boolean add(Enrollment enrollment, int student, int grade) {
+            if (slots.get(enrollment) != IdentityIntMap.MISSING) {
+                return false;
+            }
+            slots.put(enrollment, students.size());
+            students.add(student);
+            grades.add(grade);
+            gradeCounts[grade]++;
+            live++;
+            return true;
+        }
+
+        synchronized boolean remove(Enrollment enrollment) {
+            int slot = slots.remove(enrollment);
+            if (slot == IdentityIntMap.MISSING) {
+                return false;
+            }
+            gradeCounts[grades.get(slot)]--;
+            students.set(slot, REMOVED);
+            live--;
+            if (students.size() - live > Math.max(8, live)) {
+                compact();
+            }
+            return true;
+        }
+
+        synchronized void grade(Enrollment enrollment, int grade) {
+            int slot = slots.get(enrollment);
+            if (slot != IdentityIntMap.MISSING) {
+                gradeCounts[grades.get(slot)]--;
+                gradeCounts[grade]++;
+                grades.set(slot, grade);
+            }
+        }
+
+        synchronized int headcount() {
+            return live;
+        }
+
+        synchronized long[] gradeCounts() {
+            return gradeCounts.clone();
+        }
+
+        synchronized int[] studentIds() {
+            int[] ids = new int[live];
+            int next = 0;
+            for (int i = 0; i < students.size(); i++) {
+                if (students.get(i) != REMOVED) {
+                    ids[next++] = students.get(i);
+                }
+            }
+            return ids;
+        }
+
+        private void compact() {
+            int[] moved = new int[students.size()];
+            int next = 0;
+            for (int i = 0; i < students.size(); i++) {
+                if (students.get(i) != REMOVED) {
+                    students.set(next, students.get(i));
+                    grades.set(next, grades.get(i));
+                    moved[i] = next++;
+                }
+            }
+            students.truncate(next);
+            grades.truncate(next);
+            slots.replaceAll(slot -> moved[slot]);
+        }
+    }
+
+    /**
+     * The students whose identity hash falls in one stripe. A student's id is its slot here
+     * shifted left by STRIPE_BITS, with the stripe number in the low bits.
+     */
+    private static final class StudentStripe {
+        private final int stripe;
+        private final IdentityIntMap<Student> slots = new IdentityIntMap<>();
+        // Read by student() without the monitor: a slot is filled before its id reaches a roster,
+        // rosters are read under their own monitor, and a grown array is published whole
+        private volatile Student[] students = new Student[8];
+        private IntList[] courses = new IntList[8];
+        private int count;
+
+        StudentStripe(int stripe) {
+            this.stripe = stripe;
+        }
+
+        synchronized int id(Student student) {
+            int slot = slots.get(student);
+            if (slot == IdentityIntMap.MISSING) {
+                slot = count++;
+                if (slot == courses.length) {
+                    int capacity = slot + (slot >> 1) + 1;
+                    courses = Arrays.copyOf(courses, capacity);
+                    Student[] grown = Arrays.copyOf(students, capacity);
+                    grown[slot] = student;
+                    students = grown;
+                } else {
+                    students[slot] = student;
+                }
+                courses[slot] = new IntList(4);
+                slots.put(student, slot);
+            }
+            return slot << STRIPE_BITS | stripe;
+        }
+
+        Student student(int slot) {
+            return students[slot];
+        }
+
+        synchronized void addCourse(int id, int course) {
+            courses[id >>> STRIPE_BITS].add(course);
+        }
+
+        // Searches only this student's own courses, which the credit limit keeps short
+        synchronized void removeCourse(Student student, int course) {
+            int slot = slots.get(student);
+            if (slot != IdentityIntMap.MISSING) {
+                IntList enrolled = courses[slot];
+                int position = enrolled.indexOf(course);
+                if (position >= 0) {
+                    enrolled.remove(position);
+                }
+            }
+        }
+
+        synchronized int[] courses(Student student) {
+            int slot = slots.get(student);
+            return slot == IdentityIntMap.MISSING ? new int[0] : courses[slot].toArray();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+
+// src/edu/ccrm/service/EnrollmentListener.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.util.Collection;
+
+/**
+ * Notified by StudentService after an enrollment change has been applied.
+ */
+public interface EnrollmentListener {
+    // A restored enrollment may already carry a grade
+    default void enrolled(Enrollment enrollment) {}
+    
+    default void unenrolled(Enrollment enrollment) {}
+    
+    default void graded(Enrollment enrollment, Grade previous) {}
+    
+    // The student was deactivated; their enrollments are kept
+    default void deactivated(Student student) {}
+    
+    // The student joined the roster with these enrollments; by default, one event per enrollment
+    default void added(Student student) {
+        student.getEnrollments().forEach(this::enrolled);
+    }
+    
+    // The student left the roster, replaced by one with the same id; the reverse of added()
+    default void removed(Student student) {
+        student.getEnrollments().forEach(this::unenrolled);
+    }
+    
+    // The whole student population was replaced, enrollments included (e.g. a snapshot load)
+    default void reloaded(Collection<Student> students) {}
+}
@@ -0,0 +1,27 @@
+
+// src/edu/ccrm/service/EnrollmentLog.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+
+import java.io.IOException;
+
+/**
+ * Write-ahead log for enrollment changes. StudentService appends each change under the
+ * student's lock before applying it, and calls sync() once the lock is released, so a
+ * change is acknowledged only after it is durable. A change whose append fails is not
+ * applied; a failed sync is reported to the caller.
+ */
+public interface EnrollmentLog {
+    // The enrollment is not attached to the student yet; it may already carry a grade
+    void appendEnrolled(Enrollment enrollment) throws IOException;
+    
+    void appendUnenrolled(Enrollment enrollment) throws IOException;
+    
+    // The enrollment still holds its previous grade
+    void appendGraded(Enrollment enrollment, Grade grade) throws IOException;
+    
+    // Waits until everything appended so far is durable
+    void sync() throws IOException;
+}
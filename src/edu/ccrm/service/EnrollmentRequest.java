@@ -0,0 +1,34 @@
+
+// src/edu/ccrm/service/EnrollmentRequest.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Semester;
+
+/**
+ * One row of a batch enrollment: a student by registration number and a course by code.
+ * The semester is optional; without it the course is looked up by code alone.
+ */
+public final class EnrollmentRequest {
+    private final String regNo;
+    private final String courseCode;
+    private final Semester semester;
+    
+    public EnrollmentRequest(String regNo, String courseCode) {
+        this(regNo, courseCode, null);
+    }
+    
+    public EnrollmentRequest(String regNo, String courseCode, Semester semester) {
+        this.regNo = regNo;
+        this.courseCode = courseCode;
+        this.semester = semester;
+    }
+    
+    public String getRegNo() { return regNo; }
+    public String getCourseCode() { return courseCode; }
+    public Semester getSemester() { return semester; }
+    
+    @Override
+    public String toString() {
+        return regNo + " -> " + courseCode + (semester != null ? "/" + semester : "");
+    }
+}
@@ -0,0 +1,38 @@
+
+// src/edu/ccrm/service/EnrollmentResult.java
+package edu.ccrm.service;
+
+/**
+ * Outcome of one batch enrollment row. Failures are reported here instead of being thrown.
+ */
+public final class EnrollmentResult {
+    public enum Status {
+        SUCCESS,
+        DUPLICATE,
+        OVER_LIMIT,
+        COURSE_FULL,
+        UNKNOWN_STUDENT,
+        UNKNOWN_COURSE
+    }
+    
+    private final int row;
+    private final EnrollmentRequest request;
+    private final Status status;
+    
+    EnrollmentResult(int row, EnrollmentRequest request, Status status) {
+        this.row = row;
+        this.request = request;
+        this.status = status;
+    }
+    
+    // 0-based position of the request in the batch
+    public int getRow() { return row; }
+    public EnrollmentRequest getRequest() { return request; }
+    public Status getStatus() { return status; }
+    public boolean isSuccess() { return status == Status.SUCCESS; }
+    
+    @Override
+    public String toString() {
+        return "Row " + (row + 1) + " (" + request + "): " + status;
+    }
+}
@@ -0,0 +1,58 @@
+
+// src/edu/ccrm/service/ReadView.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Point-in-time view of every student and their enrollments, for reports that must not
+ * see a registration half-applied.
+ *
+ * Opening a view takes the current roster array, which is shared until the roster changes,
+ * and the current ReadViews epoch. Students that change afterwards are preserved as they
+ * were, once per epoch, just before their first change; the rest are read live when the
+ * report reaches them. A view holds nothing but that array and its epoch until read.
+ * Name or contact edits made in place before updateStudent() happen outside the service,
+ * so they are not preserved and show up in views that read the student afterwards.
+ */
+public final class ReadView {
+    private final ReadViews.Epoch epoch;
+    private final Student[] roster;
+
+    ReadView(ReadViews.Epoch epoch, Student[] roster) {
+        this.epoch = epoch;
+        this.roster = roster;
+    }
+
+    // Increases when a view is opened after a change; views with nothing between them share one
+    public long getVersion() {
+        return epoch.number;
+    }
+
+    // Inactive students included, as in StudentService.getStudentSnapshot()
+    public int getStudentCount() {
+        return roster.length;
+    }
+
+    // Read-only list in insertion order. A student that has not changed since the view was
+    // opened is copied from the live one on every get(), so a report should read each once.
+    public List<StudentRecord> getRecords() {
+        return new RecordList();
+    }
+
+    private final class RecordList extends AbstractList<StudentRecord> implements RandomAccess {
+        @Override
+        public StudentRecord get(int index) {
+            return epoch.read(roster[index]);
+        }
+
+        @Override
+        public int size() {
+            return roster.length;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+
+// src/edu/ccrm/service/ReadViews.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the student states that open ReadViews still need, copying a student only when it
+ * is about to change.
+ *
+ * Views are grouped into epochs: opening a view starts a new epoch if anything changed
+ * since the last one was started, and shares it otherwise. Before a student's first change
+ * in an epoch, StudentService calls preserve() under the student's lock, which records the
+ * student as it was when the epoch started. A view reads a student from the first record
+ * at or after its own epoch, or, if the student has not changed since, from the student
+ * itself under its lock. No change publishes anything roster-wide: a student pays for one
+ * record per epoch it changes in, and the only shared write is into that epoch's map.
+ *
+ * Each epoch links to the next, and only views hold an epoch strongly, so the GC reclaims
+ * an epoch and its records once no view can reach them. With no view open, preserve() finds
+ * nothing to record into and costs one volatile read.
+ */
+class ReadViews {
+    private volatile WeakReference<Epoch> latest = new WeakReference<>(null);
+    private long epochs;
+
+    ReadView open(Student[] roster) {
+        Epoch epoch;
+        synchronized (this) {
+            epoch = latest.get();
+            if (epoch == null || epoch.changed) {
+                Epoch next = new Epoch(++epochs);
+                if (epoch != null) {
+                    epoch.next = next;
+                }
+                latest = new WeakReference<>(next);
+                epoch = next;
+            }
+        }
+        return new ReadView(epoch, roster);
+    }
+
+    // Called under the student's lock before every change to it
+    void preserve(Student student) {
+        Epoch epoch = latest.get();
+        if (epoch != null) {
+            epoch.preserve(student);
+        }
+    }
+
+    /**
+     * The students that changed while this was the newest epoch, as they were when it started.
+     */
+    static final class Epoch {
+        final long number;
+        private final Map<Student, StudentRecord> preserved = new ConcurrentHashMap<>();
+        private volatile Epoch next;
+        private volatile boolean changed;
+
+        Epoch(long number) {
+            this.number = number;
+        }
+
+        // A change that found this epoch just before a newer one started is preserved here only,
+        // so views of the newer epoch include it. It overlapped their opening, and they read the
+        // student under the same lock, so they never see it half-applied or change their minds.
+        private void preserve(Student student) {
+            if (!preserved.containsKey(student)) {
+                preserved.put(student, new StudentRecord(student));
+                changed = true;
+            }
+        }
+
+        // The student as views of this epoch see it
+        StudentRecord read(Student student) {
+            synchronized (student) {
+                for (Epoch epoch = this; epoch != null; epoch = epoch.next) {
+                    StudentRecord record = epoch.preserved.get(student);
+                    if (record != null) {
+                        return record;
+                    }
+                }
+                return new StudentRecord(student);
+            }
+        }
+    }
+}
@@ -0,0 +1,412 @@
+
+// src/edu/ccrm/service/SearchIndex.java
+package edu.ccrm.service;
+
+import edu.ccrm.util.IntList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory inverted index over the text fields of T.
+ *
+ * Every indexed item gets an int document id; token and trigram postings are sorted
+ * int lists of those ids. Field text is lower-cased once when an item is indexed, so
+ * a query never allocates per record. Removed items leave dead ids in the postings
+ * until enough of them pile up to trigger a rebuild.
+ *
+ * CONTAINS mode, the default, keeps the original semantics and result order: the whole
+ * query must be a substring of one of the fields. RANKED mode is opt-in through setMode;
+ * it matches every query term against indexed tokens (exact, prefix or substring, in
+ * that order of score) and returns the best matches first.
+ */
+public class SearchIndex<T> implements Searchable<T> {
+    public enum Mode { RANKED, CONTAINS }
+
+    private static final int GRAM = 3;
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int SUBSTRING_SCORE = 1;
+    private static final int MIN_DOCS_BEFORE_COMPACTION = 64;
+
+    private final Function<T, String[]> fieldExtractor;
+    private final Predicate<T> visible;
+    private volatile Mode mode = Mode.CONTAINS;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<T, Integer> docIds = new IdentityHashMap<>();
+    private Object[] docs = new Object[16];
+    private String[][] docFields = new String[16][];
+    private int docCount;
+    private int liveCount;
+    private final NavigableMap<String, IntList> tokenPostings = new TreeMap<>();
+    private final Map<String, IntList> gramPostings = new HashMap<>();
+
+    public SearchIndex(Function<T, String[]> fieldExtractor, Predicate<T> visible) {
+        this.fieldExtractor = fieldExtractor;
+        this.visible = visible;
+    }
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+
+    // Indexes the item, replacing whatever was indexed for it before
+    public void put(T item) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(item);
+            addLocked(item);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(T item) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(item);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> search(String query) {
+        return search(query, 0);
+    }
+
+    @Override
+    public List<T> search(String query, int limit) {
+        String normalized = query == null ? "" : query.toLowerCase(Locale.ROOT);
+        lock.readLock().lock();
+        try {
+            if (mode == Mode.CONTAINS) {
+                return containsSearch(normalized, limit);
+            }
+            Set<String> terms = tokenize(normalized);
+            return terms.isEmpty() ? containsSearch(normalized, limit) : rankedSearch(terms, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<T> containsSearch(String query, int limit) {
+        List<T> results = new ArrayList<>();
+        if (query.length() < GRAM) {
+            for (int id = 0; id < docCount && !full(results, limit); id++) {
+                collectIfContains(id, query, results);
+            }
+        } else {
+            int[] candidates = gramCandidates(query);
+            for (int i = 0; i < candidates.length && !full(results, limit); i++) {
+                collectIfContains(candidates[i], query, results);
+            }
+        }
+        return results;
+    }
+
+    private void collectIfContains(int id, String query, List<T> results) {
+        String[] fields = docFields[id];
+        if (fields != null && anyContains(fields, query)) {
+            T item = doc(id);
+            if (visible.test(item)) {
+                results.add(item);
+            }
+        }
+    }
+
+    private List<T> rankedSearch(Set<String> terms, int limit) {
+        long[] matches = null;
+        for (String term : terms) {
+            long[] termMatches = matchTerm(term);
+            matches = matches == null ? termMatches : intersect(matches, termMatches);
+            if (matches.length == 0) {
+                return Collections.emptyList();
+            }
+        }
+
+        // Re-key as (inverted score, doc id) so one sort gives best score first, oldest doc first on ties
+        long[] ranked = new long[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            ranked[i] = ((long) (Integer.MAX_VALUE - scoreOf(matches[i])) << 32) | docOf(matches[i]);
+        }
+        Arrays.sort(ranked);
+
+        List<T> results = new ArrayList<>();
+        for (int i = 0; i < ranked.length && !full(results, limit); i++) {
+            int id = (int) ranked[i];
+            T item = doc(id);
+            if (item != null && visible.test(item)) {
+                results.add(item);
+            }
+        }
+        return results;
+    }
+
+    // Returns (doc id, best score) pairs packed into longs, sorted by doc id
+    private long[] matchTerm(String term) {
+        IntList docIdsOut = new IntList();
+        IntList scores = new IntList();
+
+        IntList exact = tokenPostings.get(term);
+        if (exact != null) {
+            appendAll(exact, EXACT_SCORE, docIdsOut, scores);
+        }
+        for (IntList postings : tokenPostings.subMap(term, false, term + Character.MAX_VALUE, false).values()) {
+            appendAll(postings, PREFIX_SCORE, docIdsOut, scores);
+        }
+        if (term.length() >= GRAM) {
+            for (int id : gramCandidates(term)) {
+                if (docFields[id] != null && anyContains(docFields[id], term)) {
+                    docIdsOut.add(id);
+                    scores.add(SUBSTRING_SCORE);
+                }
+            }
+        } else {
+            // Too short for trigrams: scan the vocabulary, which is far smaller than the documents
+            for (Map.Entry<String, IntList> entry : tokenPostings.entrySet()) {
+                if (entry.getKey().contains(term)) {
+                    appendAll(entry.getValue(), SUBSTRING_SCORE, docIdsOut, scores);
+                }
+            }
+        }
+
+        long[] packed = new long[docIdsOut.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = pack(docIdsOut.get(i), scores.get(i));
+        }
+        Arrays.sort(packed);
+
+        // Keep one entry per doc; with equal ids the highest score sorts last
+        int out = 0;
+        for (int i = 0; i < packed.length; i++) {
+            if (i + 1 < packed.length && docOf(packed[i + 1]) == docOf(packed[i])) {
+                continue;
+            }
+            packed[out++] = packed[i];
+        }
+        return Arrays.copyOf(packed, out);
+    }
+
+    private void appendAll(IntList postings, int score, IntList docIdsOut, IntList scores) {
+        for (int i = 0; i < postings.size(); i++) {
+            int id = postings.get(i);
+            if (docs[id] != null) {
+                docIdsOut.add(id);
+                scores.add(score);
+            }
+        }
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] result = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, out = 0;
+        while (i < a.length && j < b.length) {
+            int da = docOf(a[i]), db = docOf(b[j]);
+            if (da < db) {
+                i++;
+            } else if (da > db) {
+                j++;
+            } else {
+                result[out++] = pack(da, scoreOf(a[i]) + scoreOf(b[j]));
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, out);
+    }
+
+    // Docs holding every trigram of the text, sorted by id; callers still verify the match
+    private int[] gramCandidates(String text) {
+        List<IntList> lists = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            String gram = text.substring(i, i + GRAM);
+            if (seen.add(gram)) {
+                IntList postings = gramPostings.get(gram);
+                if (postings == null) {
+                    return new int[0];
+                }
+                lists.add(postings);
+            }
+        }
+        lists.sort((x, y) -> Integer.compare(x.size(), y.size()));
+
+        int[] result = lists.get(0).toArray();
+        int length = result.length;
+        for (int l = 1; l < lists.size() && length > 0; l++) {
+            IntList other = lists.get(l);
+            int i = 0, j = 0, out = 0;
+            while (i < length && j < other.size()) {
+                int a = result[i], b = other.get(j);
+                if (a < b) {
+                    i++;
+                } else if (a > b) {
+                    j++;
+                } else {
+                    result[out++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            length = out;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private void addLocked(T item) {
+        String[] raw = fieldExtractor.apply(item);
+        List<String> lowered = new ArrayList<>(raw.length);
+        for (String field : raw) {
+            if (field != null) {
+                lowered.add(field.toLowerCase(Locale.ROOT));
+            }
+        }
+        String[] fields = lowered.toArray(new String[0]);
+
+        int id = docCount++;
+        if (id == docs.length) {
+            docs = Arrays.copyOf(docs, id * 2);
+            docFields = Arrays.copyOf(docFields, id * 2);
+        }
+        docs[id] = item;
+        docFields[id] = fields;
+        docIds.put(item, id);
+        liveCount++;
+
+        // Ids only grow, so appending keeps every postings list sorted
+        Set<String> tokens = new HashSet<>();
+        Set<String> grams = new HashSet<>();
+        for (String field : fields) {
+            tokens.addAll(tokenize(field));
+            for (int i = 0; i + GRAM <= field.length(); i++) {
+                grams.add(field.substring(i, i + GRAM));
+            }
+        }
+        for (String token : tokens) {
+            tokenPostings.computeIfAbsent(token, k -> new IntList(2)).add(id);
+        }
+        for (String gram : grams) {
+            gramPostings.computeIfAbsent(gram, k -> new IntList(2)).add(id);
+        }
+    }
+
+    private void removeLocked(T item) {
+        Integer id = docIds.remove(item);
+        if (id != null) {
+            docs[id] = null;
+            docFields[id] = null;
+            liveCount--;
+        }
+    }
+
+    private void compactIfSparse() {
+        if (docCount >= MIN_DOCS_BEFORE_COMPACTION && liveCount < docCount / 2) {
+            compact();
+        }
+    }
+
+    // Rebuilds the postings without dead ids, keeping documents in their original order
+    private void compact() {
+        List<T> live = new ArrayList<>(liveCount);
+        for (int id = 0; id < docCount; id++) {
+            if (docs[id] != null) {
+                live.add(doc(id));
+            }
+        }
+        reset();
+        for (T item : live) {
+            addLocked(item);
+        }
+    }
+
+    private void reset() {
+        docIds.clear();
+        docs = new Object[16];
+        docFields = new String[16][];
+        docCount = 0;
+        liveCount = 0;
+        tokenPostings.clear();
+        gramPostings.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private T doc(int id) {
+        return (T) docs[id];
+    }
+
+    private static boolean anyContains(String[] fields, String query) {
+        for (String field : fields) {
+            if (field.contains(query)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean full(List<?> results, int limit) {
+        return limit > 0 && results.size() >= limit;
+    }
+
+    private static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static long pack(int docId, int score) {
+        return ((long) docId << 32) | score;
+    }
+
+    private static int docOf(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static int scoreOf(long packed) {
+        return (int) packed;
+    }
+}
@@ -6,4 +6,10 @@ import java.util.List;
 
 public interface Searchable<T> {
     List<T> search(String query);
+    
+    // limit <= 0 means no limit
+    default List<T> search(String query, int limit) {
+        List<T> results = search(query);
+        return limit > 0 && results.size() > limit ? results.subList(0, limit) : results;
+    }
 }
@@ -0,0 +1,99 @@
+
+// src/edu/ccrm/service/StudentRecord.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Enrollment;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.domain.Student;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Immutable state of one student as a ReadView sees it: its fields, its GPA, and its
+ * enrollments as parallel arrays. Reports scan these directly; a few small arrays instead
+ * of a full Student with its lookup maps keeps a preserved state at roughly a tenth of
+ * the live object graph. Courses are the live objects; the fields reports use (code,
+ * credits, semester, department) do not change.
+ */
+public final class StudentRecord {
+    private final String id;
+    private final String regNo;
+    private final String fullName;
+    private final String email;
+    private final LocalDate dateCreated;
+    private final boolean active;
+    private final double gpa;
+    private final Course[] courses;
+    private final LocalDate[] enrolledOn;
+    private final Grade[] grades;
+
+    // The caller holds the student's lock, so the enrollments are not changing underneath
+    StudentRecord(Student student) {
+        this.id = student.getId();
+        this.regNo = student.getRegNo();
+        this.fullName = student.getFullName();
+        this.email = student.getEmail();
+        this.dateCreated = student.getDateCreated();
+        this.active = student.isActive();
+        this.gpa = student.calculateGPA();
+        List<Enrollment> enrollments = student.getEnrollments();
+        this.courses = new Course[enrollments.size()];
+        this.enrolledOn = new LocalDate[courses.length];
+        this.grades = new Grade[courses.length];
+        for (int i = 0; i < courses.length; i++) {
+            Enrollment enrollment = enrollments.get(i);
+            courses[i] = enrollment.getCourse();
+            enrolledOn[i] = enrollment.getEnrollmentDate();
+            grades[i] = enrollment.getGrade();
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRegNo() {
+        return regNo;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // Same value Student.calculateGPA() returned for this state
+    public double getGpa() {
+        return gpa;
+    }
+
+    public int getEnrollmentCount() {
+        return courses.length;
+    }
+
+    public Course getCourse(int enrollment) {
+        return courses[enrollment];
+    }
+
+    // Null while ungraded
+    public Grade getGrade(int enrollment) {
+        return grades[enrollment];
+    }
+
+    // A new detached Student with this state; nothing links it back to the live one
+    public Student toStudent() {
+        Student student = new Student(id, regNo, fullName, email);
+        student.setDateCreated(dateCreated);
+        student.setActive(active);
+        for (int i = 0; i < courses.length; i++) {
+            Enrollment enrollment = new Enrollment(student, courses[i], enrolledOn[i]);
+            enrollment.setGrade(grades[i]);
+            student.addEnrollment(enrollment);
+        }
+        return student;
+    }
+}
@@ -0,0 +1,186 @@
+
+// src/edu/ccrm/service/StudentRepository.java
+package edu.ccrm.service;
+
+import edu.ccrm.domain.Student;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory student store with hash indexes on id, registration number and email.
+ * Lookups are lock-free; writers serialize on the repository so the indexes never disagree.
+ *
+ * Ids are unique, but registration numbers and emails may repeat. Those lookups return the
+ * first active student in insertion order, or the first student if none is active, so a
+ * deactivated duplicate never hides the active one. Students are deactivated in place,
+ * so the choice is made on every lookup rather than when indexing.
+ */
+class StudentRepository {
+    private final Map<String, Student> byId = new ConcurrentHashMap<>();
+    private final KeyIndex byRegNo = new KeyIndex();
+    private final KeyIndex byEmail = new KeyIndex();
+
+    // Insertion order for listings, and the keys each student was indexed under.
+    // Students are edited in place before updateStudent is called, so the old keys
+    // have to be remembered to drop stale index entries.
+    private final Map<String, Student> ordered = new LinkedHashMap<>();
+    private final Map<Student, IndexedKeys> indexedKeys = new IdentityHashMap<>();
+
+    // Cached array of ordered values for full scans; dropped whenever the roster changes
+    private volatile Student[] snapshot;
+
+    // Returns the other student that was replaced because it had the same id, if any
+    public synchronized Student put(Student student) {
+        unindex(student);
+        Student existing = byId.get(student.getId());
+        if (existing != null) {
+            unindex(existing);
+        }
+
+        IndexedKeys keys = new IndexedKeys(student);
+        snapshot = null;
+        ordered.put(keys.id, student);
+        indexedKeys.put(student, keys);
+        byId.put(keys.id, student);
+        if (keys.regNo != null) byRegNo.add(keys.regNo, student);
+        if (keys.email != null) byEmail.add(keys.email, student);
+        return existing;
+    }
+
+    // The replaced student for each one put, in the same order; null where none was replaced
+    public synchronized List<Student> putAll(Collection<Student> students) {
+        List<Student> replaced = new ArrayList<>(students.size());
+        for (Student student : students) {
+            replaced.add(put(student));
+        }
+        return replaced;
+    }
+
+    public synchronized boolean contains(Student student) {
+        return indexedKeys.containsKey(student);
+    }
+
+    public synchronized void clear() {
+        byId.clear();
+        byRegNo.clear();
+        byEmail.clear();
+        ordered.clear();
+        indexedKeys.clear();
+        snapshot = null;
+    }
+
+    public Student findById(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public Student findByRegNo(String regNo) {
+        return regNo == null ? null : byRegNo.find(regNo);
+    }
+
+    public Student findByEmail(String email) {
+        return email == null ? null : byEmail.find(email);
+    }
+
+    public synchronized List<Student> values() {
+        return new ArrayList<>(ordered.values());
+    }
+
+    // Shared between callers and never modified; rebuilt on the first scan after a change
+    public Student[] snapshot() {
+        Student[] current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot == null) {
+                snapshot = ordered.values().toArray(new Student[0]);
+            }
+            return snapshot;
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void unindex(Student student) {
+        IndexedKeys keys = indexedKeys.remove(student);
+        if (keys == null) {
+            return;
+        }
+        snapshot = null;
+        ordered.remove(keys.id, student);
+        byId.remove(keys.id, student);
+        if (keys.regNo != null) byRegNo.remove(keys.regNo, student);
+        if (keys.email != null) byEmail.remove(keys.email, student);
+    }
+
+    // Key to one Student, or to a Student[] in insertion order when the key repeats.
+    // Arrays are replaced, never modified, so readers need no lock.
+    private static final class KeyIndex {
+        private final Map<String, Object> entries = new ConcurrentHashMap<>();
+
+        Student find(String key) {
+            Object entry = entries.get(key);
+            if (!(entry instanceof Student[])) {
+                return (Student) entry;
+            }
+            Student[] students = (Student[]) entry;
+            for (Student student : students) {
+                if (student.isActive()) {
+                    return student;
+                }
+            }
+            return students[0];
+        }
+
+        void add(String key, Student student) {
+            entries.merge(key, student, (existing, added) -> {
+                Student[] current = existing instanceof Student[] ? (Student[]) existing
+                        : new Student[] { (Student) existing };
+                Student[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = student;
+                return grown;
+            });
+        }
+
+        void remove(String key, Student student) {
+            entries.computeIfPresent(key, (k, existing) -> {
+                if (!(existing instanceof Student[])) {
+                    return existing == student ? null : existing;
+                }
+                Student[] current = (Student[]) existing;
+                List<Student> kept = new ArrayList<>(current.length);
+                for (Student other : current) {
+                    if (other != student) {
+                        kept.add(other);
+                    }
+                }
+                return kept.size() == 1 ? kept.get(0) : kept.toArray(new Student[0]);
+            });
+        }
+
+        void clear() {
+            entries.clear();
+        }
+    }
+
+    private static final class IndexedKeys {
+        final String id;
+        final String regNo;
+        final String email;
+
+        IndexedKeys(Student student) {
+            this.id = student.getId();
+            this.regNo = student.getRegNo();
+            this.email = student.getEmail();
+        }
+    }
+}
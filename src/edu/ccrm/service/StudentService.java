@@ -5,103 +5,542 @@ package edu.ccrm.service;
 import edu.ccrm.domain.Student;
 import edu.ccrm.domain.Enrollment;
 import edu.ccrm.domain.Course;
+import edu.ccrm.domain.Grade;
+import edu.ccrm.exception.CourseFullException;
 import edu.ccrm.exception.DuplicateEnrollmentException;
 import edu.ccrm.exception.MaxCreditLimitExceededException;
+import edu.ccrm.metrics.LatencyHistogram;
+import edu.ccrm.metrics.Metrics;
+import edu.ccrm.util.CourseCode;
+import edu.ccrm.util.IntList;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class StudentService implements Searchable<Student> {
-    private List<Student> students;
-    private static final int MAX_CREDITS_PER_SEMESTER = 18;
+    private final StudentRepository students;
+    private final SearchIndex<Student> searchIndex;
+    private final ReadViews readViews = new ReadViews();
+    private final List<EnrollmentListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile EnrollmentLog log;
+    public static final int MAX_CREDITS_PER_SEMESTER = 18;
+    
+    // Batch rows mostly wait on the journal's group commit, so use more workers than cores.
+    // Virtual threads would suit this, but the code targets JDKs without them.
+    private static final int DEFAULT_BATCH_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    private static final int LANES_PER_THREAD = 4;
+    
+    private static final LatencyHistogram LOOKUP_TIMER = Metrics.timer("student.lookup", 64);
+    private static final LatencyHistogram SEARCH_TIMER = Metrics.timer("student.search");
+    private static final LatencyHistogram ENROLL_TIMER = Metrics.timer("student.enroll");
+    private static final LatencyHistogram BATCH_TIMER = Metrics.timer("student.enrollBatch");
+    private static final LatencyHistogram UNENROLL_TIMER = Metrics.timer("student.unenroll");
+    private static final LatencyHistogram GRADE_TIMER = Metrics.timer("student.grade");
+    private static final Map<EnrollmentResult.Status, LongAdder> ENROLL_OUTCOMES = new EnumMap<>(EnrollmentResult.Status.class);
+    
+    static {
+        for (EnrollmentResult.Status status : EnrollmentResult.Status.values()) {
+            ENROLL_OUTCOMES.put(status, Metrics.counter("student.enroll." + status.name().toLowerCase()));
+        }
+    }
     
     public StudentService() {
-        this.students = new ArrayList<>();
+        this.students = new StudentRepository();
+        this.searchIndex = new SearchIndex<>(
+                s -> new String[] { s.getFullName(), s.getRegNo(), s.getEmail() },
+                Student::isActive);
     }
     
     public void addStudent(Student student) {
-        students.add(student);
+        boolean rejoining = students.contains(student);
+        Student replaced = students.put(student);
+        swapIn(rejoining, replaced, student, true);
+    }
+    
+    // Bulk import path - indexes every student in one writer pass
+    public void addStudents(Collection<Student> imported) {
+        addAll(imported, false);
+    }
+    
+    // Drops every student and loads the given ones, enrollments included.
+    // Listeners get a single reloaded() event instead of one per student.
+    public void replaceAllStudents(Collection<Student> loaded) {
+        students.clear();
+        searchIndex.clear();
+        addAll(loaded, true);
+        listeners.forEach(l -> l.reloaded(loaded));
+    }
+    
+    private void addAll(Collection<Student> imported, boolean replacingAll) {
+        boolean[] rejoining = new boolean[imported.size()];
+        int i = 0;
+        for (Student student : imported) {
+            rejoining[i++] = students.contains(student);
+        }
+        List<Student> replacedStudents = students.putAll(imported);
+        i = 0;
+        for (Student student : imported) {
+            swapIn(rejoining[i], replacedStudents.get(i), student, !replacingAll);
+            i++;
+        }
+    }
+    
+    /**
+     * The one path by which a student enters the roster, in place of the student with the same
+     * id if there was one: that student's seats are released and the new student's enrollments
+     * take theirs, so single and bulk adds leave the same seat counts. A student put again
+     * after an edit (rejoining) leaves and re-enters the same way.
+     */
+    private void swapIn(boolean rejoining, Student replaced, Student student, boolean notify) {
+        if (rejoining) {
+            leave(student, notify);
+        }
+        if (replaced != null) {
+            leave(replaced, notify);
+        }
+        // Inactive students are not searchable
+        if (student.isActive()) {
+            searchIndex.put(student);
+        }
+        synchronized (student) {
+            // Loaded enrollments were valid when recorded, so they take seats even past capacity
+            student.getEnrollments().forEach(e -> e.getCourse().occupySeat());
+            if (notify) {
+                listeners.forEach(l -> l.added(student));
+            }
+        }
+    }
+    
+    private void leave(Student student, boolean notify) {
+        searchIndex.remove(student);
+        synchronized (student) {
+            student.getEnrollments().forEach(e -> e.getCourse().releaseSeat());
+            if (notify) {
+                listeners.forEach(l -> l.removed(student));
+            }
+        }
     }
     
     public Student getStudentById(String id) {
-        return students.stream()
-                .filter(s -> s.getId().equals(id) && s.isActive())
-                .findFirst()
-                .orElse(null);
+        long start = LOOKUP_TIMER.startSample();
+        Student student = activeOrNull(students.findById(id));
+        LOOKUP_TIMER.stopSample(start);
+        return student;
+    }
+    
+    // Inactive students included, for restoring recorded state such as the enrollment journal
+    public Student getStudentByIdIncludingInactive(String id) {
+        return students.findById(id);
     }
     
     public Student getStudentByRegNo(String regNo) {
-        return students.stream()
-                .filter(s -> s.getRegNo().equals(regNo) && s.isActive())
-                .findFirst()
-                .orElse(null);
+        long start = LOOKUP_TIMER.startSample();
+        Student student = activeOrNull(students.findByRegNo(regNo));
+        LOOKUP_TIMER.stopSample(start);
+        return student;
+    }
+    
+    public Student getStudentByEmail(String email) {
+        long start = LOOKUP_TIMER.startSample();
+        Student student = activeOrNull(students.findByEmail(email));
+        LOOKUP_TIMER.stopSample(start);
+        return student;
     }
     
     public List<Student> getAllStudents() {
-        return students.stream()
+        return students.values().stream()
                 .filter(Student::isActive)
                 .collect(Collectors.toList());
     }
     
+    // Every student, inactive ones included, in insertion order. The list is shared and
+    // read-only, and is rebuilt only after the roster changes, so full scans do not copy.
+    public List<Student> getStudentSnapshot() {
+        return Collections.unmodifiableList(Arrays.asList(students.snapshot()));
+    }
+    
     public void updateStudent(Student student) {
-        // In a real application, we would update the student in the database
-        // For this demo, we'll just replace the student in the list
-        students.removeIf(s -> s.getId().equals(student.getId()));
-        students.add(student);
+        // Replaces any student with the same id and re-indexes regNo/email,
+        // which may have been edited in place before this call
+        addStudent(student);
     }
     
     public void deactivateStudent(String id) {
         Student student = getStudentById(id);
         if (student != null) {
-            student.setActive(false);
+            synchronized (student) {
+                readViews.preserve(student);
+                student.setActive(false);
+                searchIndex.remove(student);
+                listeners.forEach(l -> l.deactivated(student));
+            }
         }
     }
     
+    /**
+     * Consistent point-in-time view of every student and their enrollments, for reports that
+     * run while registration continues. Constant time once the roster array is current, and
+     * never waits for writers; while a view is open, each student's first change after it
+     * copies that student's state once.
+     */
+    public ReadView openReadView() {
+        return readViews.open(students.snapshot());
+    }
+    
+    /**
+     * Sets the write-ahead log that every enrollment change is appended to before it is
+     * applied, or null for none. If the log cannot be written, the change is refused with an
+     * UncheckedIOException.
+     */
+    public void setEnrollmentLog(EnrollmentLog log) {
+        this.log = log;
+    }
+    
+    // Enrollment changes run under the student's lock: the rule checks, the log append and
+    // the update are atomic per student, and listeners see one student's changes in the order
+    // they happened. The log is synced after the lock is released.
+    // Different students never contend for a lock here; listeners keep what students share
+    // behind per-course or striped locks held for a single update.
     public void enrollStudentInCourse(Student student, Course course) 
-            throws DuplicateEnrollmentException, MaxCreditLimitExceededException {
+            throws DuplicateEnrollmentException, MaxCreditLimitExceededException, CourseFullException {
+        long start = System.nanoTime();
+        EnrollmentResult.Status status;
+        synchronized (student) {
+            status = tryEnroll(student, course);
+        }
+        if (status == EnrollmentResult.Status.SUCCESS) {
+            syncLog();
+        }
+        switch (countEnroll(status, start)) {
+            case DUPLICATE:
+                throw new DuplicateEnrollmentException("Student is already enrolled in this course for the semester");
+            case OVER_LIMIT:
+                throw new MaxCreditLimitExceededException(
+                        "Credit limit exceeded. Current: " + student.getCredits(course.getSemester()) + 
+                        ", Attempting to add: " + course.getCredits() + 
+                        ", Max: " + MAX_CREDITS_PER_SEMESTER);
+            case COURSE_FULL:
+                throw new CourseFullException("Course " + course.getCode() + " is full (" + 
+                        course.getCapacity() + " seats)");
+            default:
+                break;
+        }
+    }
+    
+    /**
+     * Enrolls every request and reports each row's outcome instead of throwing.
+     * Rows are partitioned into lanes by registration number. Each lane runs in request
+     * order on one worker, so a student's rows apply in the order they were given, while
+     * different students proceed in parallel.
+     */
+    public BatchEnrollmentResult enrollBatch(Stream<EnrollmentRequest> requests, CourseService courses) {
+        return enrollBatch(requests, courses, DEFAULT_BATCH_THREADS);
+    }
+    
+    public BatchEnrollmentResult enrollBatch(Stream<EnrollmentRequest> requests, CourseService courses, int threads) {
+        long start = System.nanoTime();
+        List<EnrollmentRequest> rows = requests.collect(Collectors.toList());
+        EnrollmentResult[] results = new EnrollmentResult[rows.size()];
         
-        // Check if already enrolled
-        boolean alreadyEnrolled = student.getEnrollments().stream()
-                .anyMatch(e -> e.getCourse().getCode().equals(course.getCode()) 
-                        && e.getCourse().getSemester() == course.getSemester());
+        IntList[] lanes = new IntList[Math.max(1, threads) * LANES_PER_THREAD];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new IntList();
+        }
+        for (int row = 0; row < rows.size(); row++) {
+            lanes[Math.floorMod(Objects.hashCode(rows.get(row).getRegNo()), lanes.length)].add(row);
+        }
         
-        if (alreadyEnrolled) {
-            throw new DuplicateEnrollmentException("Student is already enrolled in this course for the semester");
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> pending = new ArrayList<>(lanes.length);
+            for (IntList lane : lanes) {
+                if (lane.isEmpty()) {
+                    continue;
+                }
+                pending.add(executor.submit(() -> {
+                    for (int i = 0; i < lane.size(); i++) {
+                        int row = lane.get(i);
+                        long rowStart = System.nanoTime();
+                        EnrollmentResult.Status status = countEnroll(enrollRow(rows.get(row), courses), rowStart);
+                        results[row] = new EnrollmentResult(row, rows.get(row), status);
+                    }
+                }));
+            }
+            for (Future<?> lane : pending) {
+                lane.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch enrollment interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Batch enrollment failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            BATCH_TIMER.recordSince(start);
+        }
+        return new BatchEnrollmentResult(Arrays.asList(results), System.nanoTime() - start);
+    }
+    
+    // One enrollment attempt's latency and outcome, whichever path it came through
+    private static EnrollmentResult.Status countEnroll(EnrollmentResult.Status status, long start) {
+        ENROLL_TIMER.recordSince(start);
+        ENROLL_OUTCOMES.get(status).increment();
+        return status;
+    }
+    
+    private EnrollmentResult.Status enrollRow(EnrollmentRequest request, CourseService courses) {
+        Student student = getStudentByRegNo(request.getRegNo());
+        if (student == null) {
+            return EnrollmentResult.Status.UNKNOWN_STUDENT;
+        }
+        Course course;
+        try {
+            CourseCode code = CourseCode.of(request.getCourseCode());
+            course = request.getSemester() != null 
+                    ? courses.getCourseByCodeAndSemester(code, request.getSemester())
+                    : courses.getCourseByCode(code);
+        } catch (IllegalArgumentException e) {
+            course = null;
+        }
+        if (course == null) {
+            return EnrollmentResult.Status.UNKNOWN_COURSE;
+        }
+        EnrollmentResult.Status status;
+        synchronized (student) {
+            status = tryEnroll(student, course);
+        }
+        if (status == EnrollmentResult.Status.SUCCESS) {
+            syncLog();
+        }
+        return status;
+    }
+    
+    // The enrollment rules; the caller holds the student's lock
+    private EnrollmentResult.Status tryEnroll(Student student, Course course) {
+        // Check if already enrolled
+        if (student.isEnrolledIn(course)) {
+            return EnrollmentResult.Status.DUPLICATE;
         }
         
         // Check credit limit
-        int currentCredits = student.getEnrollments().stream()
-                .filter(e -> e.getCourse().getSemester() == course.getSemester())
-                .mapToInt(e -> e.getCourse().getCredits())
-                .sum();
+        if (student.getCredits(course.getSemester()) + course.getCredits() > MAX_CREDITS_PER_SEMESTER) {
+            return EnrollmentResult.Status.OVER_LIMIT;
+        }
         
-        if (currentCredits + course.getCredits() > MAX_CREDITS_PER_SEMESTER) {
-            throw new MaxCreditLimitExceededException(
-                    "Credit limit exceeded. Current: " + currentCredits + 
-                    ", Attempting to add: " + course.getCredits() + 
-                    ", Max: " + MAX_CREDITS_PER_SEMESTER);
+        // Seat last, so a rejected attempt never holds one
+        if (!course.tryReserveSeat()) {
+            return EnrollmentResult.Status.COURSE_FULL;
         }
         
-        // Create and add enrollment
+        // Create, log and add enrollment
         Enrollment enrollment = new Enrollment(student, course);
+        try {
+            writeAhead(l -> l.appendEnrolled(enrollment));
+        } catch (UncheckedIOException e) {
+            course.releaseSeat();
+            throw e;
+        }
+        readViews.preserve(student);
         student.addEnrollment(enrollment);
+        listeners.forEach(l -> l.enrolled(enrollment));
+        return EnrollmentResult.Status.SUCCESS;
     }
     
     public void unenrollStudentFromCourse(Student student, Course course) {
-        student.getEnrollments().removeIf(e -> 
-                e.getCourse().getCode().equals(course.getCode()) && 
-                e.getCourse().getSemester() == course.getSemester());
+        long start = System.nanoTime();
+        unenroll(student, course, true);
+        UNENROLL_TIMER.recordSince(start);
+    }
+    
+    /**
+     * Re-applies an unenrollment recorded earlier (journal replay). Waiting students are not
+     * promoted into the freed seat: promotions that happened were recorded as enrollments
+     * of their own, and replay restores those.
+     */
+    public void restoreUnenrollment(Student student, Course course) {
+        unenroll(student, course, false);
+    }
+    
+    private void unenroll(Student student, Course course, boolean promote) {
+        boolean released = false;
+        synchronized (student) {
+            Enrollment e;
+            while ((e = student.getEnrollment(course.getCode(), course.getSemester())) != null) {
+                Enrollment removed = e;
+                writeAhead(l -> l.appendUnenrolled(removed));
+                if (!released) {
+                    // Once for the whole change, so no view sees only part of it
+                    readViews.preserve(student);
+                }
+                student.removeEnrollment(removed);
+                removed.getCourse().releaseSeat();
+                released = true;
+                listeners.forEach(l -> l.unenrolled(removed));
+            }
+        }
+        // Outside the lock: promotion takes the waiting student's lock
+        if (released) {
+            syncLog();
+            if (promote) {
+                promoteFromWaitlist(course);
+            }
+        }
+    }
+    
+    /**
+     * Queues the student for a seat in the course. Returns false if the student is already
+     * enrolled in it or already waiting. A seat that is free right now is handed out at once.
+     */
+    public boolean joinWaitlist(Student student, Course course) {
+        synchronized (student) {
+            if (student.isEnrolledIn(course) || !course.addToWaitlist(student)) {
+                return false;
+            }
+        }
+        promoteFromWaitlist(course);
+        return true;
+    }
+    
+    public boolean leaveWaitlist(Student student, Course course) {
+        return course.removeFromWaitlist(student);
+    }
+    
+    // Enrolls waiting students in FIFO order while seats are free. Students who no longer
+    // qualify (credit limit, already enrolled) are dropped from the list.
+    private void promoteFromWaitlist(Course course) {
+        while (course.getAvailableSeats() > 0) {
+            Student next = course.pollWaitlist();
+            if (next == null) {
+                return;
+            }
+            try {
+                enrollStudentInCourse(next, course);
+            } catch (CourseFullException e) {
+                // A direct enrollment took the seat first; keep this student's place
+                course.returnToWaitlist(next);
+                return;
+            } catch (DuplicateEnrollmentException | MaxCreditLimitExceededException e) {
+                // Not eligible any more; move on to the next student
+            }
+        }
+    }
+    
+    public void assignGrade(Enrollment enrollment, Grade grade) {
+        long start = System.nanoTime();
+        synchronized (enrollment.getStudent()) {
+            Grade previous = enrollment.getGrade();
+            writeAhead(l -> l.appendGraded(enrollment, grade));
+            readViews.preserve(enrollment.getStudent());
+            enrollment.setGrade(grade);
+            listeners.forEach(l -> l.graded(enrollment, previous));
+        }
+        syncLog();
+        GRADE_TIMER.recordSince(start);
+    }
+    
+    /**
+     * Re-applies an enrollment recorded earlier (journal replay, snapshot load) without
+     * re-checking the enrollment rules, which held when it was first recorded.
+     * Returns null if the student is already enrolled in that course and semester.
+     */
+    public Enrollment restoreEnrollment(Student student, Course course, LocalDate enrolledOn, Grade grade) {
+        Enrollment enrollment;
+        synchronized (student) {
+            if (student.isEnrolledIn(course)) {
+                return null;
+            }
+            enrollment = new Enrollment(student, course, enrolledOn);
+            enrollment.setGrade(grade);
+            writeAhead(l -> l.appendEnrolled(enrollment));
+            readViews.preserve(student);
+            student.addEnrollment(enrollment);
+            course.occupySeat();
+            listeners.forEach(l -> l.enrolled(enrollment));
+        }
+        syncLog();
+        return enrollment;
+    }
+    
+    public void addEnrollmentListener(EnrollmentListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeEnrollmentListener(EnrollmentListener listener) {
+        listeners.remove(listener);
     }
     
     @Override
     public List<Student> search(String query) {
-        String searchTerm = query.toLowerCase();
-        return students.stream()
-                .filter(s -> s.isActive() && 
-                        (s.getFullName().toLowerCase().contains(searchTerm) ||
-                         s.getRegNo().toLowerCase().contains(searchTerm) ||
-                         s.getEmail().toLowerCase().contains(searchTerm)))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        List<Student> found = searchIndex.search(query);
+        SEARCH_TIMER.recordSince(start);
+        return found;
+    }
+    
+    @Override
+    public List<Student> search(String query, int limit) {
+        long start = System.nanoTime();
+        List<Student> found = searchIndex.search(query, limit);
+        SEARCH_TIMER.recordSince(start);
+        return found;
+    }
+    
+    // CONTAINS keeps the original substring-of-any-field behaviour
+    public void setSearchMode(SearchIndex.Mode mode) {
+        searchIndex.setMode(mode);
+    }
+    
+    // Appends a change before it is applied; nothing is applied if this throws
+    private void writeAhead(LogWrite write) {
+        EnrollmentLog current = log;
+        if (current == null) {
+            return;
+        }
+        try {
+            write.to(current);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Enrollment change refused, the journal could not record it", e);
+        }
+    }
+    
+    // Called without any student lock held, so one fsync covers many students' changes
+    private void syncLog() {
+        EnrollmentLog current = log;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.sync();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Enrollment change applied but not confirmed durable", e);
+        }
+    }
+    
+    private interface LogWrite {
+        void to(EnrollmentLog log) throws IOException;
+    }
+    
+    private static Student activeOrNull(Student student) {
+        return student != null && student.isActive() ? student : null;
     }
 }
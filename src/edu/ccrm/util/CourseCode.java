@@ -2,20 +2,110 @@
 // src/edu/ccrm/util/CourseCode.java
 package edu.ccrm.util;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A course code of the form ABC-123, packed into one int: the three letters as a base-26
+ * number times 1000, plus the digits. Packed values sort in the same order as the codes.
+ *
+ * Instances are canonical: of() returns the same object for the same code, so equality
+ * and hashing are int comparisons and each distinct code exists once on the heap.
+ */
 public final class CourseCode {
+    private static final int LETTER_PREFIXES = 26 * 26 * 26;
+    private static final int NUMBERS = 1000;
+    
+    // One lazily created block of 1000 codes per letter prefix, so only prefixes in use take memory
+    private static final AtomicReferenceArray<AtomicReferenceArray<CourseCode>> CACHE =
+            new AtomicReferenceArray<>(LETTER_PREFIXES);
+    
+    private final int packed;
     private final String code;
     
-    public CourseCode(String code) {
-        if (code == null || !code.matches("[A-Z]{3}-\\d{3}")) {
+    private CourseCode(int packed, String code) {
+        this.packed = packed;
+        this.code = code;
+    }
+    
+    public static CourseCode of(String code) {
+        int packed = pack(code);
+        if (packed < 0) {
             throw new IllegalArgumentException("Invalid course code format. Expected format: ABC-123");
         }
-        this.code = code;
+        return cached(packed);
+    }
+    
+    public static CourseCode fromPackedInt(int packed) {
+        if (packed < 0 || packed >= LETTER_PREFIXES * NUMBERS) {
+            throw new IllegalArgumentException("Not a packed course code: " + packed);
+        }
+        return cached(packed);
+    }
+    
+    // Same check as the old [A-Z]{3}-\d{3} regex; -1 when the code does not match
+    static int pack(String code) {
+        if (code == null || code.length() != 7 || code.charAt(3) != '-') {
+            return -1;
+        }
+        int letters = 0;
+        for (int i = 0; i < 3; i++) {
+            char c = code.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                return -1;
+            }
+            letters = letters * 26 + (c - 'A');
+        }
+        int number = 0;
+        for (int i = 4; i < 7; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return letters * NUMBERS + number;
+    }
+    
+    private static CourseCode cached(int packed) {
+        int prefix = packed / NUMBERS;
+        AtomicReferenceArray<CourseCode> block = CACHE.get(prefix);
+        if (block == null) {
+            CACHE.compareAndSet(prefix, null, new AtomicReferenceArray<>(NUMBERS));
+            block = CACHE.get(prefix);
+        }
+        int number = packed % NUMBERS;
+        CourseCode existing = block.get(number);
+        if (existing != null) {
+            return existing;
+        }
+        // Threads racing to create the same code all end up with whichever instance was published first
+        CourseCode created = new CourseCode(packed, unpack(packed));
+        return block.compareAndSet(number, null, created) ? created : block.get(number);
+    }
+    
+    private static String unpack(int packed) {
+        int letters = packed / NUMBERS;
+        int number = packed % NUMBERS;
+        char[] chars = {
+            (char) ('A' + letters / (26 * 26)),
+            (char) ('A' + letters / 26 % 26),
+            (char) ('A' + letters % 26),
+            '-',
+            (char) ('0' + number / 100),
+            (char) ('0' + number / 10 % 10),
+            (char) ('0' + number % 10)
+        };
+        return new String(chars);
     }
     
     public String getCode() {
         return code;
     }
     
+    public int toPackedInt() {
+        return packed;
+    }
+    
     @Override
     public String toString() {
         return code;
@@ -25,12 +115,11 @@ public final class CourseCode {
     public boolean equals(Object obj) {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
-        CourseCode that = (CourseCode) obj;
-        return code.equals(that.code);
+        return packed == ((CourseCode) obj).packed;
     }
     
     @Override
     public int hashCode() {
-        return code.hashCode();
+        return packed;
     }
 }
@@ -0,0 +1,135 @@
+
+// src/edu/ccrm/util/IdentityIntMap.java
+package edu.ccrm.util;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Map from object identity to a primitive int, with open addressing and linear probing, for
+ * indexes of ids and row numbers that would otherwise box one Integer per key. Keys are
+ * compared with ==. Values must not be negative. Not thread-safe.
+ */
+public final class IdentityIntMap<K> {
+    public static final int MISSING = -1;
+    
+    private Object[] keys;
+    private int[] values;
+    private int size;
+    
+    public IdentityIntMap() {
+        this(16);
+    }
+    
+    public IdentityIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize * 2 - 1)) << 1;
+        this.keys = new Object[capacity];
+        this.values = new int[capacity];
+    }
+    
+    public IdentityIntMap(IdentityIntMap<K> other) {
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+    }
+    
+    // The key's value, or MISSING
+    public int get(Object key) {
+        int mask = keys.length - 1;
+        for (int slot = slotOf(key, mask); keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return MISSING;
+    }
+    
+    public void put(K key, int value) {
+        if (key == null || value < 0) {
+            throw new IllegalArgumentException("Null key or negative value: " + value);
+        }
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != null) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+    
+    // Returns the removed value, or MISSING. Later entries of the probe run are shifted back,
+    // so lookups never need tombstones.
+    public int remove(Object key) {
+        int mask = keys.length - 1;
+        int slot = slotOf(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == null) {
+                return MISSING;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int removed = values[slot];
+        int hole = slot;
+        for (int next = (hole + 1) & mask; keys[next] != null; next = (next + 1) & mask) {
+            int home = slotOf(keys[next], mask);
+            // Move the entry back unless its home lies cyclically after the hole
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                values[hole] = values[next];
+                hole = next;
+            }
+        }
+        keys[hole] = null;
+        size--;
+        return removed;
+    }
+    
+    // Replaces every value with the operator's result, e.g. to renumber rows after compaction
+    public void replaceAll(IntUnaryOperator operator) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                values[i] = operator.applyAsInt(values[i]);
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+    
+    private void grow() {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = slotOf(oldKeys[i], mask);
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+    
+    // Identity hashes are spread by a Fibonacci multiply, since linear probing is sensitive to clustering
+    private static int slotOf(Object key, int mask) {
+        int h = System.identityHashCode(key) * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
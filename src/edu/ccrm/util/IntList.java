@@ -0,0 +1,89 @@
+
+// src/edu/ccrm/util/IntList.java
+package edu.ccrm.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used where boxed Integer collections would dominate the heap.
+ */
+public final class IntList {
+    private int[] values;
+    private int size;
+    
+    public IntList() {
+        this(8);
+    }
+    
+    public IntList(int initialCapacity) {
+        this.values = new int[Math.max(1, initialCapacity)];
+    }
+    
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+    
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[index];
+    }
+    
+    public void set(int index, int value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        values[index] = value;
+    }
+    
+    // Position of the first occurrence, or -1
+    public int indexOf(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    // Shifts later values down, keeping their order
+    public void remove(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public int last() {
+        return get(size - 1);
+    }
+    
+    public void clear() {
+        size = 0;
+    }
+    
+    // Drops every value from the given index on
+    public void truncate(int newSize) {
+        if (newSize > size) {
+            throw new IndexOutOfBoundsException("Size: " + newSize + ", current: " + size);
+        }
+        size = newSize;
+    }
+    
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
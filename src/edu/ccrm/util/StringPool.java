@@ -0,0 +1,42 @@
+
+// src/edu/ccrm/util/StringPool.java
+package edu.ccrm.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, thread-safe intern pool for strings that repeat across many records, such as
+ * department names and instructor ids. Once the pool is full, new strings are returned
+ * as they are rather than evicting canonical ones other objects may already share.
+ */
+public final class StringPool {
+    public static final StringPool DEPARTMENTS = new StringPool(4_096);
+    public static final StringPool INSTRUCTOR_IDS = new StringPool(65_536);
+    
+    private final ConcurrentHashMap<String, String> pool = new ConcurrentHashMap<>();
+    private final int maxSize;
+    
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    // The canonical instance equal to value; null stays null
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String canonical = pool.get(value);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (pool.size() >= maxSize) {
+            return value;
+        }
+        canonical = pool.putIfAbsent(value, value);
+        return canonical != null ? canonical : value;
+    }
+    
+    public int size() {
+        return pool.size();
+    }
+}